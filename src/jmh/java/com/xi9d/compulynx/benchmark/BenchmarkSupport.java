@@ -0,0 +1,104 @@
+package com.xi9d.compulynx.benchmark;
+
+import com.xi9d.compulynx.CompulynxApplication;
+import com.xi9d.compulynx.service.DataService;
+import com.xi9d.compulynx.service.JobProgress;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+final class BenchmarkSupport {
+
+    /** Seed of all generated data, so every run measures the same rows. */
+    static final long SEED = 42;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * The application the benchmarks run against: CompulynxApplication without the web server,
+     * on an embedded PostgreSQL server migrated by the application's Flyway scripts. The
+     * settings are those of application.properties, except that every cache is disabled so
+     * each invocation does the full work.
+     *
+     * initdb refuses to run as root, so neither do the benchmarks.
+     */
+    static final class Application implements AutoCloseable {
+
+        private final EmbeddedPostgres postgres;
+        private final ConfigurableApplicationContext context;
+
+        Application() throws IOException {
+            postgres = EmbeddedPostgres.start();
+            try {
+                // Command line arguments take precedence over application.properties
+                context = new SpringApplicationBuilder(CompulynxApplication.class)
+                        .web(WebApplicationType.NONE)
+                        .bannerMode(Banner.Mode.OFF)
+                        .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres")
+                                        + "&reWriteBatchedInserts=true",
+                                "--spring.jpa.show-sql=false",
+                                "--app.cache.enabled=false",
+                                "--app.pagination.count-cache-seconds=0",
+                                "--logging.level.com.xi9d.compulynx=WARN");
+            } catch (RuntimeException e) {
+                postgres.close();
+                throw e;
+            }
+        }
+
+        DataService dataService() {
+            return context.getBean(DataService.class);
+        }
+
+        DataSource dataSource() {
+            return context.getBean(DataSource.class);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                context.close();
+            } finally {
+                postgres.close();
+            }
+        }
+    }
+
+    /**
+     * Generates an Excel file and processes it to CSV, returning both paths.
+     */
+    static Path[] excelAndCsv(DataService dataService, int rows) throws IOException {
+        Path excel = dataFile(dataService.generateExcelFile(rows, 1, SEED, JobProgress.NONE));
+        Path csv = dataFile(dataService.processExcelToCsv(excel, JobProgress.NONE));
+        return new Path[] {excel, csv};
+    }
+
+    /**
+     * Where DataService put a file it created: the system directory, or the local fallback
+     * when that one is not writable.
+     */
+    static Path dataFile(String fileName) {
+        String base = System.getProperty("os.name").toLowerCase().contains("win")
+                ? "C:\\var\\log\\applications\\API\\dataprocessing\\"
+                : "/var/log/applications/API/dataprocessing/";
+        Path file = Paths.get(base, fileName);
+        return Files.exists(file) ? file : Paths.get("logs/applications/API/dataprocessing/", fileName);
+    }
+
+    static void deleteAll(List<Path> files) throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+        files.clear();
+    }
+}
@@ -0,0 +1,93 @@
+package com.xi9d.compulynx.benchmark;
+
+import com.xi9d.compulynx.service.DataService;
+import com.xi9d.compulynx.service.JobProgress;
+import com.xi9d.compulynx.service.StudentCsvCache;
+import com.xi9d.compulynx.service.StudentCsvScanner;
+import com.xi9d.compulynx.entity.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Excel to CSV processing and parsing of the processed CSV.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConvertBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private BenchmarkSupport.Application application;
+    private DataService dataService;
+    private Path excel;
+    private Path csv;
+    private final List<Path> processed = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        application = new BenchmarkSupport.Application();
+        dataService = application.dataService();
+        Path[] files = BenchmarkSupport.excelAndCsv(dataService, rows);
+        excel = files[0];
+        csv = files[1];
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteProcessed() throws IOException {
+        BenchmarkSupport.deleteAll(processed);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteAll(new ArrayList<>(List.of(excel, csv)));
+        application.close();
+    }
+
+    @Benchmark
+    public Path processExcelToCsv() throws IOException {
+        Path file = BenchmarkSupport.dataFile(dataService.processExcelToCsv(excel, JobProgress.NONE));
+        processed.add(file);
+        return file;
+    }
+
+    /**
+     * What getAllStudentsFromCsv does on a cache miss: scan the file into columns and expose
+     * them as students. A new cache per call keeps every call a miss.
+     */
+    @Benchmark
+    public List<Student> getAllStudentsFromCsv() throws IOException {
+        return new StudentCsvCache().get(csv, StudentCsvScanner::scan).getStudents();
+    }
+
+    /** Reads every student of the list, materialising each row. */
+    @Benchmark
+    public long getAllStudentsFromCsvAndRead() throws IOException {
+        long sum = 0;
+        for (Student student : new StudentCsvCache().get(csv, StudentCsvScanner::scan).getStudents()) {
+            sum += student.getScore();
+        }
+        return sum;
+    }
+}
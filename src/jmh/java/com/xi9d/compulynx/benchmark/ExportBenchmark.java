@@ -0,0 +1,85 @@
+package com.xi9d.compulynx.benchmark;
+
+import com.itextpdf.text.DocumentException;
+import com.xi9d.compulynx.service.DataService;
+import com.xi9d.compulynx.service.StudentColumns;
+import com.xi9d.compulynx.service.StudentCsvCache;
+import com.xi9d.compulynx.service.StudentCsvScanner;
+import com.xi9d.compulynx.service.StudentCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The exporters, reading a columnar CSV snapshot and writing to a discarding stream, so only
+ * the rendering is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportBenchmark {
+
+    // The 1M-row PDF export takes minutes per call; -p rows=10000,100000 leaves it out of quick runs
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private BenchmarkSupport.Application application;
+    private DataService dataService;
+    private Path[] files;
+    private StudentColumns students;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        application = new BenchmarkSupport.Application();
+        dataService = application.dataService();
+        files = BenchmarkSupport.excelAndCsv(dataService, rows);
+        students = new StudentCsvCache().get(files[1], StudentCsvScanner::scan).getColumns();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteAll(new ArrayList<>(List.of(files)));
+        application.close();
+    }
+
+    @Benchmark
+    public void exportToExcel() throws IOException {
+        try (StudentCursor cursor = students.cursor(null)) {
+            dataService.exportToExcel(cursor, OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public void exportToCsv() throws IOException {
+        try (StudentCursor cursor = students.cursor(null)) {
+            dataService.exportToCsv(cursor, OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public void exportToPdf() throws IOException, DocumentException {
+        try (StudentCursor cursor = students.cursor(null)) {
+            dataService.exportToPdf(cursor, OutputStream.nullOutputStream());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.xi9d.compulynx.benchmark;
+
+import com.xi9d.compulynx.service.DataService;
+import com.xi9d.compulynx.service.GeneratedFileFormat;
+import com.xi9d.compulynx.service.JobProgress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Student file generation: the Excel workbook, sequential and sharded, and the direct formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenerateBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private BenchmarkSupport.Application application;
+    private DataService dataService;
+    private final List<Path> generated = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        application = new BenchmarkSupport.Application();
+        dataService = application.dataService();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteGenerated() throws IOException {
+        BenchmarkSupport.deleteAll(generated);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public Path generateExcelFile() throws IOException {
+        return keep(dataService.generateExcelFile(rows, 1, BenchmarkSupport.SEED, JobProgress.NONE));
+    }
+
+    @Benchmark
+    public Path generateExcelFileSharded() throws IOException {
+        return keep(dataService.generateExcelFile(rows, Runtime.getRuntime().availableProcessors(),
+                BenchmarkSupport.SEED, JobProgress.NONE));
+    }
+
+    @Benchmark
+    public Path generateCsvFile() throws IOException {
+        return keep(dataService.generateStudentFile(rows, GeneratedFileFormat.CSV, 1, BenchmarkSupport.SEED,
+                JobProgress.NONE));
+    }
+
+    @Benchmark
+    public Path generateColumnarFile() throws IOException {
+        return keep(dataService.generateStudentFile(rows, GeneratedFileFormat.COLUMNAR, 1, BenchmarkSupport.SEED,
+                JobProgress.NONE));
+    }
+
+    private Path keep(String fileName) {
+        Path file = BenchmarkSupport.dataFile(fileName);
+        generated.add(file);
+        return file;
+    }
+}
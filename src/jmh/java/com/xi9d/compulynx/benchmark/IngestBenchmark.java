@@ -0,0 +1,80 @@
+package com.xi9d.compulynx.benchmark;
+
+import com.xi9d.compulynx.service.DataService;
+import com.xi9d.compulynx.service.IngestEngine;
+import com.xi9d.compulynx.service.JobProgress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV upload into the embedded PostgreSQL server of the benchmark application. Every
+ * invocation starts from an empty students table. The JPA engine, the slowest by far, is left
+ * out of the default parameters; -p engine=JPA measures it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IngestBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"BATCH", "COPY", "PIPELINED"})
+    public IngestEngine engine;
+
+    private BenchmarkSupport.Application application;
+    private DataSource dataSource;
+    private DataService dataService;
+    private Path[] files;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        application = new BenchmarkSupport.Application();
+        dataSource = application.dataSource();
+        dataService = application.dataService();
+        files = BenchmarkSupport.excelAndCsv(dataService, rows);
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE students RESTART IDENTITY");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteAll(new ArrayList<>(List.of(files)));
+        application.close();
+    }
+
+    @Benchmark
+    public void uploadCsvToDatabase() throws IOException {
+        dataService.uploadCsvToDatabase(files[1], engine, JobProgress.NONE);
+    }
+}
@@ -0,0 +1,43 @@
+package com.xi9d.compulynx.controller;
+
+import com.xi9d.compulynx.service.ResultCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/data/cache")
+@CrossOrigin(
+    origins = "http://localhost:4200",
+    allowCredentials = "true"
+)
+@RequiredArgsConstructor
+@Slf4j
+public class CacheController {
+    
+    private final ResultCache resultCache;
+    
+    /**
+     * Hit/miss counters, sizes and evictions of every cache tier, plus the current data version.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(resultCache.getStats());
+    }
+    
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> invalidate() {
+        resultCache.invalidate();
+        log.info("Result cache cleared on request");
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Cache cleared");
+        response.put("dataVersion", resultCache.getVersion());
+        return ResponseEntity.ok(response);
+    }
+}
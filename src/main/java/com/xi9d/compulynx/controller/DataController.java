@@ -1,7 +1,17 @@
 package com.xi9d.compulynx.controller;
 
 import com.xi9d.compulynx.entity.Student;
+import com.xi9d.compulynx.service.CompressionCodec;
 import com.xi9d.compulynx.service.DataService;
+import com.xi9d.compulynx.service.DuplicatePolicy;
+import com.xi9d.compulynx.service.GeneratedFileFormat;
+import com.xi9d.compulynx.service.IngestEngine;
+import com.xi9d.compulynx.service.Job;
+import com.xi9d.compulynx.service.JobProgress;
+import com.xi9d.compulynx.service.JobService;
+import com.xi9d.compulynx.service.ResultCache;
+import com.xi9d.compulynx.service.StudentPageCursor;
+import com.xi9d.compulynx.service.StudentStatistics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -13,10 +23,16 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/data")
@@ -29,27 +45,63 @@ import java.util.Map;
 public class DataController {
     
     private final DataService dataService;
+    private final JobService jobService;
+    private final ResultCache resultCache;
     
+    /**
+     * Generates recordCount random students. format=xlsx (default), csv, csv-gzip or columnar:
+     * the CSV formats hold the same rows as the workbook and skip the /process-excel round trip
+     * when no spreadsheet is needed. The same seed always generates the same rows.
+     */
     @PostMapping("/generate-excel")
-    public ResponseEntity<Map<String, Object>> generateExcelFile(@RequestParam int recordCount) {
+    public ResponseEntity<Map<String, Object>> generateExcelFile(@RequestParam int recordCount,
+                                                                 @RequestParam(defaultValue = "xlsx") String format,
+                                                                 @RequestParam(defaultValue = "1") int parallelism,
+                                                                 @RequestParam(required = false) Long seed,
+                                                                 @RequestParam(defaultValue = "false") boolean async) {
         Map<String, Object> response = new HashMap<>();
         try {
-            String fileName = dataService.generateExcelFile(recordCount);
+            GeneratedFileFormat fileFormat;
+            try {
+                fileFormat = GeneratedFileFormat.fromParam(format);
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            if (async) {
+                Job job = jobService.submit("generate-" + fileFormat.name().toLowerCase(),
+                        progress -> dataService.generateStudentFile(recordCount, fileFormat, parallelism, seed, progress));
+                return jobAccepted(job, fileFormat + " generation started");
+            }
+            
+            String fileName = dataService.generateStudentFile(recordCount, fileFormat, parallelism, seed, JobProgress.NONE);
             response.put("success", true);
-            response.put("message", "Excel file generated successfully");
+            response.put("message", fileFormat == GeneratedFileFormat.XLSX
+                    ? "Excel file generated successfully" : fileFormat + " file generated successfully");
             response.put("fileName", fileName);
+            response.put("format", fileFormat.name().toLowerCase());
             response.put("recordCount", recordCount);
             return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            return jobRejected(e);
         } catch (Exception e) {
-            log.error("Error generating Excel file", e);
+            log.error("Error generating {} file", format, e);
             response.put("success", false);
-            response.put("message", "Error generating Excel file: " + e.getMessage());
+            response.put("message", "Error generating file: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
     
+    /**
+     * compression=gzip or zstd writes the processed CSV compressed; the read endpoints decode
+     * it on the fly. The uploaded workbook may itself be gzip or zstd compressed.
+     */
     @PostMapping("/process-excel")
-    public ResponseEntity<Map<String, Object>> processExcelToCsv(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> processExcelToCsv(@RequestParam("file") MultipartFile file,
+                                                                 @RequestParam(defaultValue = "none") String compression,
+                                                                 @RequestParam(defaultValue = "false") boolean async) {
         Map<String, Object> response = new HashMap<>();
         try {
             if (file.isEmpty()) {
@@ -58,11 +110,30 @@ public class DataController {
                 return ResponseEntity.badRequest().body(response);
             }
             
-            String csvFileName = dataService.processExcelToCsv(file);
+            CompressionCodec outputCompression;
+            try {
+                outputCompression = CompressionCodec.fromParam(compression);
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            if (async) {
+                // The multipart temp file is deleted once the request completes, keep a copy for the job
+                Path upload = dataService.spoolUpload(file, ".xlsx");
+                Job job = submitWithUpload("process-excel", upload,
+                        progress -> dataService.processExcelToCsv(upload, outputCompression, progress));
+                return jobAccepted(job, "Excel processing started");
+            }
+            
+            String csvFileName = dataService.processExcelToCsv(file, outputCompression);
             response.put("success", true);
             response.put("message", "Excel file processed to CSV successfully");
             response.put("csvFileName", csvFileName);
             return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            return jobRejected(e);
         } catch (Exception e) {
             log.error("Error processing Excel file", e);
             response.put("success", false);
@@ -71,8 +142,15 @@ public class DataController {
         }
     }
     
+    /**
+     * duplicates=fail rejects the upload at the first studentId already in the table, skip
+     * drops such rows and update overwrites the stored students with them.
+     */
     @PostMapping("/upload-csv")
-    public ResponseEntity<Map<String, Object>> uploadCsvToDatabase(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> uploadCsvToDatabase(@RequestParam("file") MultipartFile file,
+                                                                   @RequestParam(defaultValue = "jpa") String engine,
+                                                                   @RequestParam(defaultValue = "fail") String duplicates,
+                                                                   @RequestParam(defaultValue = "false") boolean async) {
         Map<String, Object> response = new HashMap<>();
         try {
             if (file.isEmpty()) {
@@ -81,10 +159,33 @@ public class DataController {
                 return ResponseEntity.badRequest().body(response);
             }
             
-            dataService.uploadCsvToDatabase(file);
+            IngestEngine ingestEngine;
+            DuplicatePolicy duplicatePolicy;
+            try {
+                ingestEngine = IngestEngine.fromParam(engine);
+                duplicatePolicy = DuplicatePolicy.fromParam(duplicates);
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            if (async) {
+                Path upload = dataService.spoolUpload(file, ".csv");
+                Job job = submitWithUpload("upload-csv", upload, progress -> {
+                    dataService.uploadCsvToDatabase(upload, ingestEngine, duplicatePolicy, progress);
+                    return null;
+                });
+                return jobAccepted(job, "CSV upload started");
+            }
+            
+            Map<String, Object> result = dataService.uploadCsvToDatabase(file, ingestEngine, duplicatePolicy);
             response.put("success", true);
             response.put("message", "CSV data uploaded to database successfully");
+            response.putAll(result);
             return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            return jobRejected(e);
         } catch (Exception e) {
             log.error("Error uploading CSV to database", e);
             response.put("success", false);
@@ -93,27 +194,107 @@ public class DataController {
         }
     }
     
+    /**
+     * Fused generate/process/upload: the rows of the uploaded Excel file, or recordCount
+     * generated rows when there is no file, go straight to the database with both score
+     * transforms applied. teeCsv=true also keeps the processed CSV, as /process-excel would.
+     */
+    @PostMapping("/pipeline")
+    public ResponseEntity<Map<String, Object>> runPipeline(@RequestParam(value = "file", required = false) MultipartFile file,
+                                                           @RequestParam(required = false) Integer recordCount,
+                                                           @RequestParam(required = false) Long seed,
+                                                           @RequestParam(defaultValue = "copy") String engine,
+                                                           @RequestParam(defaultValue = "false") boolean teeCsv,
+                                                           @RequestParam(defaultValue = "false") boolean async) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            boolean fromExcel = file != null && !file.isEmpty();
+            if (!fromExcel && (recordCount == null || recordCount < 0)) {
+                response.put("success", false);
+                response.put("message", "Please select an Excel file or give a recordCount to generate");
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            IngestEngine ingestEngine;
+            try {
+                ingestEngine = IngestEngine.fromParam(engine);
+                if (ingestEngine == IngestEngine.PIPELINED) {
+                    throw new IllegalArgumentException("The pipelined engine ingests CSV files, use jpa, batch or copy");
+                }
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            if (async) {
+                if (fromExcel) {
+                    Path upload = dataService.spoolUpload(file, ".xlsx");
+                    // The job's result file is the CSV copy, if any
+                    Job job = submitWithUpload("pipeline", upload, progress -> (String) dataService
+                            .runPipeline(upload, 0, null, ingestEngine, teeCsv, progress).get("csvFileName"));
+                    return jobAccepted(job, "Pipeline started");
+                }
+                Job job = jobService.submit("pipeline", progress -> (String) dataService
+                        .runPipeline(null, recordCount, seed, ingestEngine, teeCsv, progress).get("csvFileName"));
+                return jobAccepted(job, "Pipeline started");
+            }
+            
+            Map<String, Object> result;
+            if (fromExcel) {
+                // The event reader needs random access to the zip entries, so spool the upload to disk first
+                Path upload = dataService.spoolUpload(file, ".xlsx");
+                try {
+                    result = dataService.runPipeline(upload, 0, null, ingestEngine, teeCsv, JobProgress.NONE);
+                } finally {
+                    Files.deleteIfExists(upload);
+                }
+            } else {
+                result = dataService.runPipeline(null, recordCount, seed, ingestEngine, teeCsv, JobProgress.NONE);
+            }
+            response.put("success", true);
+            response.put("message", "Students written to database successfully");
+            response.putAll(result);
+            return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            return jobRejected(e);
+        } catch (Exception e) {
+            log.error("Error running pipeline", e);
+            response.put("success", false);
+            response.put("message", "Error running pipeline: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    /**
+     * Pages through the students. By default this is classic offset paging (page/size). Passing
+     * a cursor parameter, empty for the first page, switches to keyset paging on studentId:
+     * every page costs the same however deep it is, and the response carries the nextCursor
+     * to send for the following page. count=exact|cached|none controls the total count in
+     * keyset mode (default none).
+     */
     @GetMapping("/students")
     public ResponseEntity<Map<String, Object>> getStudents(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) Long studentId,
-            @RequestParam(required = false) String className) {
+            @RequestParam(required = false) String className,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "none") String count) {
         
         try {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Student> studentsPage = dataService.getStudentsWithFilters(studentId, className, pageable);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("content", studentsPage.getContent());
-            response.put("totalElements", studentsPage.getTotalElements());
-            response.put("totalPages", studentsPage.getTotalPages());
-            response.put("currentPage", studentsPage.getNumber());
-            response.put("size", studentsPage.getSize());
-            response.put("first", studentsPage.isFirst());
-            response.put("last", studentsPage.isLast());
+            // Repeated queries are answered from the result cache until the data changes
+            String query = ResultCache.key("students", page, size, studentId, className, cursor, count.toLowerCase());
+            Map<String, Object> response = resultCache.getPage(query, () -> cursor != null
+                    ? getStudentsByKeyset(size, studentId, className, cursor, count)
+                    : getStudentsByOffset(page, size, studentId, className));
             
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             log.error("Error fetching students", e);
             Map<String, Object> response = new HashMap<>();
@@ -123,47 +304,195 @@ public class DataController {
         }
     }
     
+    private Map<String, Object> getStudentsByOffset(int page, int size, Long studentId, String className) {
+        Pageable pageable = PageRequest.of(page, size);
+        Page<Student> studentsPage = dataService.getStudentsWithFilters(studentId, className, pageable);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", studentsPage.getContent());
+        response.put("totalElements", studentsPage.getTotalElements());
+        response.put("totalPages", studentsPage.getTotalPages());
+        response.put("currentPage", studentsPage.getNumber());
+        response.put("size", studentsPage.getSize());
+        response.put("first", studentsPage.isFirst());
+        response.put("last", studentsPage.isLast());
+        return response;
+    }
+    
+    private Map<String, Object> getStudentsByKeyset(int size, Long studentId, String className,
+                                                    String cursor, String count) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        String countMode = count.toLowerCase();
+        if (!countMode.equals("none") && !countMode.equals("exact") && !countMode.equals("cached")) {
+            throw new IllegalArgumentException("Unknown count mode: " + count + " (expected exact, cached or none)");
+        }
+        Long afterStudentId = cursor.isEmpty() ? null : StudentPageCursor.decode(cursor);
+        
+        // One extra row tells whether another page follows, without a count query
+        List<Student> students = dataService.getStudentsAfter(afterStudentId, studentId, className, size + 1);
+        boolean last = students.size() <= size;
+        if (!last) {
+            students = students.subList(0, size);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", students);
+        response.put("size", size);
+        response.put("first", afterStudentId == null);
+        response.put("last", last);
+        response.put("nextCursor", last ? null : StudentPageCursor.encode(students.get(students.size() - 1).getStudentId()));
+        
+        if (!countMode.equals("none")) {
+            long totalElements = dataService.countStudentsWithFilters(studentId, className, countMode.equals("cached"));
+            response.put("totalElements", totalElements);
+            response.put("totalPages", (totalElements + size - 1) / size);
+        }
+        return response;
+    }
+    
+    /**
+     * format=csv is compressed with zstd or gzip when the request's Accept-Encoding allows it;
+     * xlsx is a zip archive already and PDF streams are deflated, so they are sent as they are.
+     */
     @GetMapping("/students/export")
-    public ResponseEntity<byte[]> exportStudents(
+    public ResponseEntity<StreamingResponseBody> exportStudents(
             @RequestParam String format,
-            @RequestParam(required = false) String className) {
+            @RequestParam(required = false) String className,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        
+        String exportFormat = format.toLowerCase();
+        HttpHeaders headers = new HttpHeaders();
+        CompressionCodec encoding = CompressionCodec.NONE;
         
+        switch (exportFormat) {
+            case "excel":
+                headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+                headers.setContentDispositionFormData("attachment", "students_report.xlsx");
+                break;
+            case "csv":
+                headers.setContentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8));
+                headers.setContentDispositionFormData("attachment", "students_report.csv");
+                encoding = CompressionCodec.fromAcceptEncoding(acceptEncoding);
+                headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+                if (encoding != CompressionCodec.NONE) {
+                    headers.set(HttpHeaders.CONTENT_ENCODING, encoding.getContentEncoding());
+                }
+                break;
+            case "pdf":
+                headers.setContentType(MediaType.APPLICATION_PDF);
+                headers.setContentDispositionFormData("attachment", "students_report.pdf");
+                break;
+            default:
+                return ResponseEntity.badRequest().build();
+        }
+        
+        // Rows are read from a cursor (or the result cache) and written to the response as the client consumes it
+        CompressionCodec responseEncoding = encoding;
+        StreamingResponseBody body = outputStream -> {
+            try {
+                dataService.exportStudents(exportFormat, className, responseEncoding, outputStream);
+            } catch (IOException | RuntimeException e) {
+                // The status line is already sent, the client sees a truncated download
+                log.error("Error exporting students", e);
+                throw e;
+            }
+        };
+        TODO : //remember to add data as a parameter
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+    
+    private Job submitWithUpload(String type, Path upload, JobService.JobTask task) throws IOException {
         try {
-            List<Student> students = dataService.getStudentsByClass(className);
-            
-            HttpHeaders headers = new HttpHeaders();
-            byte[] data;
-            
-            switch (format.toLowerCase()) {
-                case "excel":
-                    data = dataService.exportToExcel(students);
-                    headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-                    headers.setContentDispositionFormData("attachment", "students_report.xlsx");
-                    break;
+            // Deleted when the job finishes, even if it is cancelled before it starts
+            return jobService.submit(type, task, status -> Files.deleteIfExists(upload));
+        } catch (RejectedExecutionException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+    }
+    
+    private ResponseEntity<Map<String, Object>> jobAccepted(Job job, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", message);
+        response.put("jobId", job.getId());
+        response.put("statusUrl", "/api/data/jobs/" + job.getId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+    
+    private ResponseEntity<Map<String, Object>> jobRejected(RejectedExecutionException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+    }
+    
+    /**
+     * Per-class count, score distribution (min/max/mean, percentiles, histogram of
+     * bucketWidth-wide ranges) and birth years. source=csv reads the most recent processed CSV,
+     * source=database the students table; by default the CSV is used when there is one, like
+     * the other read endpoints. Served from aggregates, without scanning the data.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats(
+            @RequestParam(defaultValue = "auto") String source,
+            @RequestParam(defaultValue = "10") int bucketWidth) {
+        
+        Map<String, Object> response = new HashMap<>();
+        if (bucketWidth < 1) {
+            response.put("success", false);
+            response.put("message", "bucketWidth must be at least 1");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        try {
+            StudentStatistics statistics;
+            String resolvedSource;
+            switch (source.toLowerCase()) {
                 case "csv":
-                    data = dataService.exportToCsv(students);
-                    headers.setContentType(MediaType.TEXT_PLAIN);
-                    headers.setContentDispositionFormData("attachment", "students_report.csv");
+                    statistics = dataService.getCsvStatistics();
+                    resolvedSource = "csv";
                     break;
-                case "pdf":
-                    data = dataService.exportToPdf(students);
-                    headers.setContentType(MediaType.APPLICATION_PDF);
-                    headers.setContentDispositionFormData("attachment", "students_report.pdf");
+                case "database":
+                    statistics = dataService.getDatabaseStatistics();
+                    resolvedSource = "database";
+                    break;
+                case "auto":
+                    statistics = dataService.getCsvStatistics();
+                    resolvedSource = "csv";
+                    if (statistics.isEmpty()) {
+                        statistics = dataService.getDatabaseStatistics();
+                        resolvedSource = "database";
+                    }
                     break;
                 default:
-                    return ResponseEntity.badRequest().build();
+                    response.put("success", false);
+                    response.put("message", "Unknown source: " + source + " (expected auto, csv or database)");
+                    return ResponseEntity.badRequest().body(response);
             }
-            TODO : //remember to add data as a parameter
-            return new ResponseEntity<>( data, headers, HttpStatus.OK);
+            
+            response.putAll(statistics.toMap(bucketWidth));
+            response.put("source", resolvedSource);
+            response.put("success", true);
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
-            log.error("Error exporting students", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            log.error("Error computing student statistics", e);
+            response.put("success", false);
+            response.put("message", "Error computing student statistics: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
     
     @GetMapping("/classes")
     public ResponseEntity<String[]> getClasses() {
-        String[] classes = {"Class1", "Class2", "Class3", "Class4", "Class5"};
-        return ResponseEntity.ok(classes);
+        try {
+            String[] classes = dataService.getClassNames().toArray(new String[0]);
+            return ResponseEntity.ok(classes);
+        } catch (Exception e) {
+            log.error("Error fetching class names", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.xi9d.compulynx.controller;
+
+import com.xi9d.compulynx.service.Job;
+import com.xi9d.compulynx.service.JobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/data/jobs")
+@CrossOrigin(
+    origins = "http://localhost:4200",
+    allowCredentials = "true"
+)
+@RequiredArgsConstructor
+@Slf4j
+public class JobController {
+    
+    private final JobService jobService;
+    
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> getJobs() {
+        List<Map<String, Object>> jobs = jobService.getJobs().stream()
+                .map(Job::toMap)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(jobs);
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String id) {
+        return jobService.getJob(id)
+                .map(job -> ResponseEntity.ok(job.toMap()))
+                .orElseGet(() -> notFound(id));
+    }
+    
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String id) {
+        if (jobService.getJob(id).isEmpty()) {
+            return notFound(id);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        if (jobService.cancel(id)) {
+            response.put("success", true);
+            response.put("message", "Cancellation requested");
+            return ResponseEntity.ok(response);
+        }
+        response.put("success", false);
+        response.put("message", "Job has already finished");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+    
+    private ResponseEntity<Map<String, Object>> notFound(String id) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "Job not found: " + id);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+}
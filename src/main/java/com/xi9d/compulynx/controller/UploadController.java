@@ -0,0 +1,216 @@
+package com.xi9d.compulynx.controller;
+
+import com.xi9d.compulynx.service.CompressionCodec;
+import com.xi9d.compulynx.service.DataService;
+import com.xi9d.compulynx.service.DuplicatePolicy;
+import com.xi9d.compulynx.service.IngestCheckpoint;
+import com.xi9d.compulynx.service.IngestEngine;
+import com.xi9d.compulynx.service.Job;
+import com.xi9d.compulynx.service.JobProgress;
+import com.xi9d.compulynx.service.JobService;
+import com.xi9d.compulynx.service.UploadSession;
+import com.xi9d.compulynx.service.UploadSessionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Chunked, resumable alternative to the multipart /upload-csv and /process-excel:
+ * <ol>
+ *     <li>POST /api/data/uploads?fileName=&amp;totalBytes= creates a session,</li>
+ *     <li>PUT /api/data/uploads/{id}?offset= appends the raw request body at that offset,</li>
+ *     <li>GET /api/data/uploads/{id} reports the offset to continue from after an interruption,</li>
+ *     <li>POST /api/data/uploads/{id}/complete?action=upload-csv|process-excel processes the file.</li>
+ * </ol>
+ * A failed upload-csv completion keeps the session and its checkpoint; completing it again
+ * resumes after the last committed batch.
+ */
+@RestController
+@RequestMapping("/api/data/uploads")
+@CrossOrigin(
+    origins = "http://localhost:4200",
+    allowCredentials = "true"
+)
+@RequiredArgsConstructor
+@Slf4j
+public class UploadController {
+
+    private final UploadSessionService uploadSessionService;
+    private final DataService dataService;
+    private final JobService jobService;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createUpload(@RequestParam(required = false) String fileName,
+                                                            @RequestParam(required = false) Long totalBytes) {
+        try {
+            UploadSession session = uploadSessionService.create(fileName, totalBytes);
+            Map<String, Object> response = new HashMap<>(session.toMap());
+            response.put("success", true);
+            response.put("uploadUrl", "/api/data/uploads/" + session.getId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (Exception e) {
+            return error("Error creating upload", null, e);
+        }
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> appendChunk(@PathVariable String id, @RequestParam long offset,
+                                                           InputStream chunk) {
+        try {
+            UploadSession session = uploadSessionService.append(id, offset, chunk);
+            Map<String, Object> response = new HashMap<>(session.toMap());
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return error("Error appending to upload", id, e);
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getUpload(@PathVariable String id) {
+        try {
+            return uploadSessionService.get(id)
+                    .map(session -> ResponseEntity.ok(session.toMap()))
+                    .orElseGet(() -> error("Error reading upload", id, new NoSuchFileException("Upload not found: " + id)));
+        } catch (Exception e) {
+            return error("Error reading upload", id, e);
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> deleteUpload(@PathVariable String id) {
+        try {
+            if (!uploadSessionService.cancel(id)) {
+                throw new NoSuchFileException("Upload not found: " + id);
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Upload deleted");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return error("Error deleting upload", id, e);
+        }
+    }
+
+    /**
+     * Processes the uploaded file like the multipart endpoint named by action. upload-csv takes
+     * the engine and duplicates parameters of /upload-csv and resumes from the checkpoint of
+     * an earlier failed completion; process-excel takes the compression parameter of /process-excel.
+     */
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<Map<String, Object>> completeUpload(@PathVariable String id,
+                                                              @RequestParam(defaultValue = "upload-csv") String action,
+                                                              @RequestParam(defaultValue = "jpa") String engine,
+                                                              @RequestParam(defaultValue = "fail") String duplicates,
+                                                              @RequestParam(defaultValue = "none") String compression,
+                                                              @RequestParam(defaultValue = "false") boolean async) {
+        try {
+            boolean ingest;
+            IngestEngine ingestEngine = IngestEngine.fromParam(engine);
+            DuplicatePolicy duplicatePolicy = DuplicatePolicy.fromParam(duplicates);
+            CompressionCodec outputCompression = CompressionCodec.fromParam(compression);
+            if ("upload-csv".equals(action)) {
+                ingest = true;
+            } else if ("process-excel".equals(action)) {
+                ingest = false;
+            } else {
+                throw new IllegalArgumentException("Unknown action: " + action + ", use upload-csv or process-excel");
+            }
+
+            Path file = uploadSessionService.beginCompletion(id);
+            IngestCheckpoint checkpoint;
+            try {
+                checkpoint = uploadSessionService.checkpoint(id);
+            } catch (IOException | RuntimeException e) {
+                uploadSessionService.finish(id, false);
+                throw e;
+            }
+
+            if (async) {
+                Job job;
+                try {
+                    // Released when the job ends, including a cancellation while it was still queued
+                    job = jobService.submit(action, progress -> {
+                        if (ingest) {
+                            dataService.uploadCsvToDatabase(file, ingestEngine, duplicatePolicy, checkpoint, progress);
+                            return null;
+                        }
+                        return dataService.processExcelToCsv(file, outputCompression, progress);
+                    }, status -> uploadSessionService.finish(id, status == Job.Status.COMPLETED));
+                } catch (RejectedExecutionException e) {
+                    uploadSessionService.finish(id, false);
+                    throw e;
+                }
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("message", ingest ? "CSV upload started" : "Excel processing started");
+                response.put("jobId", job.getId());
+                response.put("statusUrl", "/api/data/jobs/" + job.getId());
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            boolean succeeded = false;
+            try {
+                if (ingest) {
+                    response.putAll(dataService.uploadCsvToDatabase(file, ingestEngine, duplicatePolicy, checkpoint,
+                            JobProgress.NONE));
+                    response.put("message", "CSV data uploaded to database successfully");
+                } else {
+                    response.put("fileName", dataService.processExcelToCsv(file, outputCompression, JobProgress.NONE));
+                    response.put("message", "Excel file processed successfully");
+                }
+                succeeded = true;
+            } finally {
+                uploadSessionService.finish(id, succeeded);
+            }
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return error("Error completing upload", id, e);
+        }
+    }
+
+    /**
+     * Maps a failure to its status: 404 for an unknown upload, 400 for bad parameters, 409 for
+     * an offset mismatch or a busy or incomplete upload (the response carries the offset to
+     * continue from), 429 when the job queue is full, 500 otherwise.
+     */
+    private ResponseEntity<Map<String, Object>> error(String message, String id, Exception e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        HttpStatus status;
+        if (e instanceof NoSuchFileException) {
+            status = HttpStatus.NOT_FOUND;
+        } else if (e instanceof IllegalArgumentException) {
+            status = HttpStatus.BAD_REQUEST;
+        } else if (e instanceof IllegalStateException) {
+            status = HttpStatus.CONFLICT;
+            try {
+                if (id != null) {
+                    uploadSessionService.get(id).ifPresent(session -> response.putAll(session.toMap()));
+                }
+            } catch (IOException | RuntimeException ignored) {
+                // The message already tells what went wrong
+            }
+        } else if (e instanceof RejectedExecutionException) {
+            status = HttpStatus.TOO_MANY_REQUESTS;
+        } else {
+            log.error(message, e);
+            response.put("message", message + ": " + e.getMessage());
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        return ResponseEntity.status(status).body(response);
+    }
+}
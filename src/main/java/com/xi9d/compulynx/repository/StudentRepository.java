@@ -1,33 +1,85 @@
 package com.xi9d.compulynx.repository;
 
 import com.xi9d.compulynx.entity.Student;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
     
+    /** Rows fetched per round trip by the streaming queries. */
+    String STREAM_FETCH_SIZE = "1000";
+    
     Optional<Student> findByStudentId(Long studentId);
     
+    // Student list filters: one query per filter combination. A catch-all
+    // "(:param IS NULL OR col = :param)" predicate ends up with a single generic plan that
+    // cannot use the indexes. Pages are ordered by studentId; the (class_name, student_id)
+    // index serves the class counts and rare classes, common classes walk the student_id
+    // index (plans and timings in bench/filter_queries.sql).
+    
     Page<Student> findByStudentId(Long studentId, Pageable pageable);
     
-    Page<Student> findByClassName(String className, Pageable pageable);
+    Page<Student> findByStudentIdAndClassName(Long studentId, String className, Pageable pageable);
+    
+    Page<Student> findByClassNameOrderByStudentIdAsc(String className, Pageable pageable);
+    
+    Page<Student> findAllByOrderByStudentIdAsc(Pageable pageable);
+    
+    long countByStudentId(Long studentId);
+    
+    long countByStudentIdAndClassName(Long studentId, String className);
     
-    @Query("SELECT s FROM Student s WHERE " +
-           "(:studentId IS NULL OR s.studentId = :studentId) AND " +
-           "(:className IS NULL OR s.className = :className)")
-    Page<Student> findStudentsWithFilters(@Param("studentId") Long studentId,
-                                        @Param("className") String className,
-                                        Pageable pageable);
+    long countByClassName(String className);
+    
+    // Keyset pagination: the next rows after a known studentId, so the cost does not grow with the page number
+    
+    List<Student> findByStudentIdGreaterThanOrderByStudentIdAsc(long afterStudentId, Limit limit);
+    
+    List<Student> findByClassNameAndStudentIdGreaterThanOrderByStudentIdAsc(String className, long afterStudentId,
+                                                                            Limit limit);
+    
+    /**
+     * Student counts grouped by class, score and birth year: [className, score, birthYear, count].
+     * A few hundred rows summarise the whole table.
+     */
+    @Query("SELECT s.className, s.score, YEAR(s.dob), COUNT(s) FROM Student s " +
+           "GROUP BY s.className, s.score, YEAR(s.dob)")
+    List<Object[]> countByClassScoreAndBirthYear();
     
     List<Student> findByClassNameOrderByStudentIdAsc(String className);
     
     List<Student> findAllByOrderByStudentIdAsc();
-}
\ No newline at end of file
+    
+    // Streaming variants for unbounded reads. They must run inside a (read-only) transaction:
+    // the PostgreSQL driver only honours the fetch size when autocommit is off, and the
+    // stream has to be closed before the transaction ends.
+    
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    Stream<Student> streamAllByOrderByStudentIdAsc();
+    
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    Stream<Student> streamByClassNameOrderByStudentIdAsc(String className);
+}
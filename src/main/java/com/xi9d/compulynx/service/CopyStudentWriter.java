@@ -0,0 +1,126 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Streams students into the students table through a single PostgreSQL
+ * {@code COPY ... FROM STDIN} operation. Rows are sent as CSV while they are produced and
+ * become visible together when {@link #finish()} ends the copy; closing the writer without
+ * finishing cancels the copy, so a failed ingest leaves nothing behind.
+ */
+@Slf4j
+public class CopyStudentWriter implements StudentWriter {
+
+    private static final String COPY_SQL = "COPY students (student_id, first_name, last_name, dob, class_name, score) "
+            + "FROM STDIN WITH (FORMAT csv)";
+
+    private final Connection connection;
+    private final PGCopyOutputStream copy;
+    private final StringBuilder line = new StringBuilder(128);
+
+    public CopyStudentWriter(DataSource dataSource) throws IOException {
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IOException("Unable to open database connection for COPY: " + e.getMessage(), e);
+        }
+        try {
+            copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_SQL, 1 << 16);
+        } catch (SQLException e) {
+            closeConnection();
+            throw new IOException("Unable to start COPY into students: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long write(List<Student> batch) throws IOException {
+        for (Student student : batch) {
+            line.setLength(0);
+            line.append(student.getStudentId()).append(',');
+            appendText(student.getFirstName());
+            line.append(',');
+            appendText(student.getLastName());
+            line.append(',');
+            if (student.getDob() != null) {
+                line.append(student.getDob());
+            }
+            line.append(',');
+            appendText(student.getClassName());
+            line.append(',');
+            if (student.getScore() != null) {
+                line.append(student.getScore());
+            }
+            line.append('\n');
+            copy.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return batch.size();
+    }
+
+    @Override
+    public long finish() throws IOException {
+        try {
+            long rows = copy.endCopy();
+            log.info("COPY finished, {} students written to database", rows);
+            return rows;
+        } catch (SQLException e) {
+            throw new IOException("COPY into students failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+                log.warn("COPY into students cancelled, no rows were written");
+            }
+        } catch (SQLException e) {
+            log.error("Error cancelling COPY: {}", e.getMessage(), e);
+        } finally {
+            closeConnection();
+        }
+    }
+
+    private void appendText(String value) {
+        if (value == null) {
+            return;
+        }
+        // Quote only when needed; an unquoted empty value would otherwise be read as NULL
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void closeConnection() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.error("Error closing COPY connection: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Micrometer meters of the data operations, exposed at /actuator/prometheus:
+ *
+ * <ul>
+ *   <li>students.operation: duration of every generate, process, ingest and pipeline run, by
+ *       operation, variant (file format or ingest engine) and outcome</li>
+ *   <li>students.operation.rows: rows done, counted while the operation runs, so its rate is
+ *       the live throughput; students.operation.throughput holds the rows per second of the
+ *       last completed run</li>
+ *   <li>students.ingest.batch.flush: time to write one batch to the database, by engine</li>
+ *   <li>students.ingest.parse.errors: rejected CSV records, by engine and error type</li>
+ *   <li>students.ingest.duplicates: uploaded rows with a studentId already present, by engine
+ *       and whether they were skipped or updated</li>
+ *   <li>students.export and students.export.bytes: export time and size, by format and
+ *       whether the result cache answered</li>
+ *   <li>students.ingest.pipeline.queue.depth: batches waiting in the queues of the running
+ *       pipelined ingests</li>
+ * </ul>
+ *
+ * The job gauges are registered by {@link JobService}.
+ */
+@Component
+public class DataMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicLong> throughputs = new ConcurrentHashMap<>();
+    private final Set<PipelinedCsvIngestor> runningPipelines = ConcurrentHashMap.newKeySet();
+
+    public DataMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        registerQueueDepth("lines", PipelinedCsvIngestor::getLineQueueDepth);
+        registerQueueDepth("students", PipelinedCsvIngestor::getStudentQueueDepth);
+    }
+
+    /**
+     * Starts timing an operation; close the returned operation when it ends.
+     */
+    public Operation start(String operation, String variant) {
+        return new Operation(operation, variant.toLowerCase());
+    }
+
+    /**
+     * Decorates a writer so the time of every batch it writes is recorded.
+     */
+    public StudentWriter timeBatches(StudentWriter writer, String engine) {
+        Timer timer = Timer.builder("students.ingest.batch.flush")
+                .description("Time to write one batch of students to the database")
+                .tag("engine", engine.toLowerCase())
+                .register(registry);
+        return new StudentWriter() {
+            @Override
+            public long write(List<Student> batch) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    return writer.write(batch);
+                } finally {
+                    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public boolean commitsEachBatch() {
+                return writer.commitsEachBatch();
+            }
+
+            @Override
+            public long finish() throws IOException {
+                return writer.finish();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
+    public void parseError(String engine, Exception error) {
+        parseError(engine, errorType(error));
+    }
+
+    /**
+     * @param type number, date, columns or other
+     */
+    public void parseError(String engine, String type) {
+        Counter.builder("students.ingest.parse.errors")
+                .description("CSV records that could not be converted to students")
+                .tag("engine", engine.toLowerCase())
+                .tag("type", type)
+                .register(registry)
+                .increment();
+    }
+
+    public void duplicates(String engine, DuplicateFilter filter) {
+        countDuplicates(engine, "skipped", filter.getSkipped());
+        countDuplicates(engine, "updated", filter.getUpdated());
+    }
+
+    private void countDuplicates(String engine, String action, long rows) {
+        Counter.builder("students.ingest.duplicates")
+                .description("Uploaded rows whose studentId was already in the table or the file")
+                .tag("engine", engine.toLowerCase())
+                .tag("action", action)
+                .register(registry)
+                .increment(rows);
+    }
+
+    public void export(String format, boolean cached, long bytes, long nanos) {
+        String cache = cached ? "hit" : "miss";
+        Timer.builder("students.export")
+                .description("Time to write an export to the response")
+                .tag("format", format.toLowerCase())
+                .tag("cache", cache)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("students.export.bytes")
+                .description("Size of the exports written")
+                .baseUnit("bytes")
+                .tag("format", format.toLowerCase())
+                .tag("cache", cache)
+                .register(registry)
+                .record(bytes);
+    }
+
+    void pipelineStarted(PipelinedCsvIngestor ingestor) {
+        runningPipelines.add(ingestor);
+    }
+
+    void pipelineFinished(PipelinedCsvIngestor ingestor) {
+        runningPipelines.remove(ingestor);
+    }
+
+    /**
+     * One gauge per queue over all running ingests, registered once: an ingestor only joins and
+     * leaves runningPipelines. Gauges keep their state object by weak reference, which is safe
+     * here because this component holds the set (as it holds the throughput values).
+     */
+    private void registerQueueDepth(String queue, ToIntFunction<PipelinedCsvIngestor> depth) {
+        Gauge.builder("students.ingest.pipeline.queue.depth", runningPipelines,
+                        pipelines -> pipelines.stream().mapToInt(depth).sum())
+                .description("Batches waiting in the queues of the running pipelined ingests")
+                .tag("queue", queue)
+                .register(registry);
+    }
+
+    private static String errorType(Exception error) {
+        if (error instanceof NumberFormatException) {
+            return "number";
+        }
+        if (error instanceof DateTimeParseException) {
+            return "date";
+        }
+        return "other";
+    }
+
+    /**
+     * One run of an operation. Rows are counted through the {@link JobProgress} returned by
+     * {@link #track}; the run counts as failed unless {@link #succeeded()} is called before
+     * it is closed.
+     */
+    public final class Operation implements AutoCloseable {
+
+        private final String operation;
+        private final String variant;
+        private final long start = System.nanoTime();
+        private final Counter rowCounter;
+        private final AtomicLong rows = new AtomicLong();
+        private boolean succeeded;
+
+        private Operation(String operation, String variant) {
+            this.operation = operation;
+            this.variant = variant;
+            this.rowCounter = Counter.builder("students.operation.rows")
+                    .description("Rows generated, processed or written")
+                    .tag("operation", operation)
+                    .tag("variant", variant)
+                    .register(registry);
+        }
+
+        public JobProgress track(JobProgress progress) {
+            return new JobProgress() {
+                @Override
+                public void setTotalRows(long totalRows) {
+                    progress.setTotalRows(totalRows);
+                }
+
+                @Override
+                public void advance(long advanced) {
+                    rows.addAndGet(advanced);
+                    rowCounter.increment(advanced);
+                    progress.advance(advanced);
+                }
+
+                @Override
+                public InputStream trackInput(InputStream inputStream, long totalBytes) {
+                    return progress.trackInput(inputStream, totalBytes);
+                }
+
+                @Override
+                public void checkCancelled() {
+                    progress.checkCancelled();
+                }
+            };
+        }
+
+        public void succeeded() {
+            succeeded = true;
+        }
+
+        @Override
+        public void close() {
+            long nanos = System.nanoTime() - start;
+            Timer.builder("students.operation")
+                    .description("Duration of generate, process, ingest and pipeline runs")
+                    .tag("operation", operation)
+                    .tag("variant", variant)
+                    .tag("outcome", succeeded ? "success" : "failure")
+                    .register(registry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+
+            if (succeeded && nanos > 0) {
+                throughputs.computeIfAbsent(operation + "|" + variant, key -> {
+                    AtomicLong throughput = new AtomicLong();
+                    Gauge.builder("students.operation.throughput", throughput, AtomicLong::get)
+                            .description("Rows per second of the last completed run")
+                            .tag("operation", operation)
+                            .tag("variant", variant)
+                            .register(registry);
+                    return throughput;
+                }).set(rows.get() * 1_000_000_000L / nanos);
+            }
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.xi9d.compulynx.service;
 
 import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.ColumnText;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfPageEventHelper;
 import com.itextpdf.text.pdf.PdfWriter;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
@@ -10,24 +12,41 @@ import com.opencsv.exceptions.CsvValidationException;
 import com.xi9d.compulynx.entity.Student;
 import com.xi9d.compulynx.repository.StudentRepository;
 
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.sql.DataSource;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
 
 
 import com.itextpdf.text.Document;
@@ -43,15 +62,150 @@ import com.itextpdf.text.Phrase;
 public class DataService {
     
     private final StudentRepository studentRepository;
+    private final DataSource dataSource;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final StudentCsvCache studentCsvCache;
+    private final StudentCountCache studentCountCache;
+    private final StudentStatsService studentStatsService;
+    private final ResultCache resultCache;
+    private final DataMetrics dataMetrics;
     
-    private static final String[] CLASS_OPTIONS = {"Class1", "Class2", "Class3", "Class4", "Class5"};
+    private static final String[] GENERATED_HEADERS = {"studentId", "firstName", "lastName", "DOB", "class", "score"};
     private static final String WINDOWS_BASE_PATH = "C:\\var\\log\\applications\\API\\dataprocessing\\";
     private static final String LINUX_BASE_PATH = "/var/log/applications/API/dataprocessing/";
     private static final String LOCAL_BASE_PATH   = "logs/applications/API/dataprocessing/";
 
+    @Value("${app.excel.row-window-size:1000}")
+    private int excelRowWindowSize;
 
+    @Value("${app.export.pdf.chunk-rows:500}")
+    private int pdfChunkRows;
 
+    @Value("${app.ingest.batch-size:1000}")
+    private int ingestBatchSize;
+
+    @Value("${app.ingest.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    @Value("${app.ingest.pipeline.parser-threads:0}")
+    private int pipelineParserThreads;
+
+    @Value("${app.ingest.pipeline.writer-threads:4}")
+    private int pipelineWriterThreads;
+
+    @Value("${app.ingest.pipeline.queue-capacity:16}")
+    private int pipelineQueueCapacity;
+
+
+
+    /**
+     * Generates recordCount students into a new file of the given format and returns its name.
+     * Only XLSX generation is sharded over parallelism threads; the other formats are written
+     * faster than the disk takes them from a single thread.
+     *
+     * @param seed seed of the generated rows, the same seed always gives the same rows; null for random data
+     */
+    public String generateStudentFile(int recordCount, GeneratedFileFormat format, int parallelism, Long seed,
+                                      JobProgress progress) throws IOException {
+        try (DataMetrics.Operation operation = dataMetrics.start("generate", format.name())) {
+            String fileName = generateFile(recordCount, format, parallelism, seed, operation.track(progress));
+            operation.succeeded();
+            return fileName;
+        }
+    }
+    
+    private String generateFile(int recordCount, GeneratedFileFormat format, int parallelism, Long seed,
+                                JobProgress progress) throws IOException {
+        if (format == GeneratedFileFormat.XLSX) {
+            return generateExcelFile(recordCount, parallelism, seed, progress);
+        }
+        
+        progress.setTotalRows(recordCount);
+        long rowSeed = seed != null ? seed : StudentRowGenerator.randomSeed();
+        String fileName = "students_" + System.currentTimeMillis() + format.getExtension();
+        Path target = Paths.get(getFilePath(fileName));
+        
+        try (StudentRowGenerator students = new StudentRowGenerator(rowSeed, 1, recordCount)) {
+            if (format == GeneratedFileFormat.COLUMNAR) {
+                StudentColumnsFile.write(target, students, progress);
+            } else {
+                writeGeneratedCsv(target, students, format == GeneratedFileFormat.CSV_GZIP, progress);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        
+        log.info("{} file generated successfully: {}", format, target);
+        return fileName;
+    }
+    
+    /**
+     * Writes the generated rows as CSV: each row is copied as bytes into a buffer that is
+     * handed to the file channel whenever it fills up, without a Writer or per-row strings.
+     */
+    private void writeGeneratedCsv(Path target, StudentRowGenerator students, boolean gzip, JobProgress progress)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream compressed = gzip ? CompressionCodec.GZIP.encoder(Channels.newOutputStream(channel)) : null) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+            byte[] bytes = buffer.array();
+            int position = 0;
+            
+            byte[] header = (String.join(",", GENERATED_HEADERS) + "\n").getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(header, 0, bytes, 0, header.length);
+            position += header.length;
+            
+            long rows = 0;
+            while (students.next()) {
+                if (position > bytes.length - StudentRowGenerator.MAX_CSV_ROW_BYTES) {
+                    writeBuffer(channel, compressed, buffer, position);
+                    position = 0;
+                }
+                position = students.writeCsvRow(bytes, position);
+                
+                if (++rows % 10000 == 0) {
+                    progress.advance(10000);
+                    progress.checkCancelled();
+                }
+            }
+            writeBuffer(channel, compressed, buffer, position);
+            progress.advance(rows % 10000);
+        }
+    }
+    
+    private static void writeBuffer(FileChannel channel, OutputStream compressed, ByteBuffer buffer, int length)
+            throws IOException {
+        if (compressed != null) {
+            compressed.write(buffer.array(), 0, length);
+            return;
+        }
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
     public String generateExcelFile(int recordCount) throws IOException {
+        return generateExcelFile(recordCount, 1);
+    }
+    
+    public String generateExcelFile(int recordCount, int parallelism) throws IOException {
+        return generateExcelFile(recordCount, parallelism, JobProgress.NONE);
+    }
+    
+    public String generateExcelFile(int recordCount, int parallelism, JobProgress progress) throws IOException {
+        return generateExcelFile(recordCount, parallelism, null, progress);
+    }
+    
+    /**
+     * @param seed seed of the generated rows, the same seed always gives the same rows; null for random data
+     */
+    public String generateExcelFile(int recordCount, int parallelism, Long seed, JobProgress progress) throws IOException {
+        progress.setTotalRows(recordCount);
+        long rowSeed = seed != null ? seed : StudentRowGenerator.randomSeed();
         String fileName = "students_" + System.currentTimeMillis() + ".xlsx";
         String filePath = getFilePath(fileName);
         
@@ -59,8 +213,20 @@ public class DataService {
         Path path = Paths.get(filePath).getParent();
         Files.createDirectories(path);
         
-        try (Workbook workbook = new XSSFWorkbook();
-             FileOutputStream fileOut = new FileOutputStream(filePath)) {
+        int shards = Math.min(Math.max(parallelism, 1), Runtime.getRuntime().availableProcessors());
+        if (shards > 1) {
+            generateExcelFileSharded(Paths.get(filePath), recordCount, shards, rowSeed, progress);
+            log.info("Excel file generated successfully with {} shards: {}", shards, filePath);
+            return fileName;
+        }
+        
+        // Streaming workbook: only the last excelRowWindowSize rows stay on the heap,
+        // older rows are flushed to a (compressed) temp file
+        SXSSFWorkbook workbook = new SXSSFWorkbook(excelRowWindowSize);
+        workbook.setCompressTempFiles(true);
+        
+        try (FileOutputStream fileOut = new FileOutputStream(filePath);
+             StudentRowGenerator students = new StudentRowGenerator(rowSeed, 1, recordCount)) {
             
             Sheet sheet = workbook.createSheet("Students");
             
@@ -72,7 +238,7 @@ public class DataService {
             
             // Create header row
             Row headerRow = sheet.createRow(0);
-            String[] headers = {"studentId", "firstName", "lastName", "DOB", "class", "score"};
+            String[] headers = GENERATED_HEADERS;
             
             for (int i = 0; i < headers.length; i++) {
                 Cell cell = headerRow.createCell(i);
@@ -80,94 +246,113 @@ public class DataService {
                 cell.setCellStyle(headerStyle);
             }
             
+            // Column widths come from the known schema, autoSizeColumn would need every row in memory
+            int[] columnWidths = getGeneratedColumnWidths(recordCount);
+            for (int i = 0; i < headers.length; i++) {
+                sheet.setColumnWidth(i, columnWidths[i] * 256);
+            }
+            
             // Create data rows
-            for (int i = 1; i <= recordCount; i++) {
+            for (int i = 1; students.next(); i++) {
                 Row row = sheet.createRow(i);
                 
-                row.createCell(0).setCellValue(i); // studentId
-                row.createCell(1).setCellValue(generateRandomString(3, 8)); // firstName
-                row.createCell(2).setCellValue(generateRandomString(3, 8)); // lastName
-                row.createCell(3).setCellValue(generateRandomDate().toString()); // DOB
-                row.createCell(4).setCellValue(CLASS_OPTIONS[ThreadLocalRandom.current().nextInt(CLASS_OPTIONS.length)]); // class
-                row.createCell(5).setCellValue(ThreadLocalRandom.current().nextInt(55, 76)); // score
+                row.createCell(0).setCellValue(students.getStudentId()); // studentId
+                row.createCell(1).setCellValue(students.getFirstName()); // firstName
+                row.createCell(2).setCellValue(students.getLastName()); // lastName
+                row.createCell(3).setCellValue(students.getDobString()); // DOB
+                row.createCell(4).setCellValue(students.getClassName()); // class
+                row.createCell(5).setCellValue(students.getScore()); // score
                 
+                if (i % 1000 == 0) {
+                    progress.advance(1000);
+                    progress.checkCancelled();
+                }
                 if (i % 10000 == 0) {
                     log.info("Generated {} records", i);
                 }
             }
             
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
+            progress.advance(recordCount % 1000);
             workbook.write(fileOut);
+        } catch (IOException | RuntimeException e) {
+            // Don't leave a truncated workbook behind, e.g. when the job was cancelled
+            Files.deleteIfExists(Paths.get(filePath));
+            throw e;
+        } finally {
+            // Delete the temp files backing the flushed rows
+            workbook.dispose();
+            workbook.close();
         }
         
         log.info("Excel file generated successfully: {}", filePath);
         return fileName;
     }
-    public List<Student> getAllStudentsFromCsv() {
-    List<Student> students = new ArrayList<>();
+    private void generateExcelFileSharded(Path target, int recordCount, int shards, long seed, JobProgress progress)
+            throws IOException {
+        boolean[] numericColumns = {true, false, false, false, false, true};
+        ShardedXlsxWriter writer = new ShardedXlsxWriter("Students", GENERATED_HEADERS,
+                getGeneratedColumnWidths(recordCount), numericColumns);
+        
+        // One generator per shard; positioned at the shard's first row it yields the same rows as a single one
+        writer.write(target, recordCount, shards, progress, firstRow -> {
+            StudentRowGenerator students = new StudentRowGenerator(seed, firstRow, recordCount);
+            return (rowNumber, values) -> {
+                students.next();
+                values[0] = String.valueOf(students.getStudentId()); // studentId
+                values[1] = students.getFirstName(); // firstName
+                values[2] = students.getLastName(); // lastName
+                values[3] = students.getDobString(); // DOB
+                values[4] = students.getClassName(); // class
+                values[5] = students.getScoreString(); // score
+            };
+        });
+    }
     
+    private int[] getGeneratedColumnWidths(int recordCount) {
+        int[] maxChars = {String.valueOf(recordCount).length(), 8, 8, 10, 6, 2};
+        int[] widths = new int[GENERATED_HEADERS.length];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = Math.max(GENERATED_HEADERS[i].length(), maxChars[i]) + 2;
+        }
+        return widths;
+    }
+    
+    public List<Student> getAllStudentsFromCsv() {
+    return getCsvSnapshot().getStudents();
+}
+
+private StudentCsvCache.Snapshot getCsvSnapshot() {
     // Look for the most recent CSV file in the logs directory
     String csvFilePath = findMostRecentCsvFile();
     
     if (csvFilePath == null) {
         log.warn("No CSV file found in logs directory");
-        return students; // Return empty list
+        return StudentCsvCache.Snapshot.EMPTY;
     }
     
-    try (FileReader fileReader = new FileReader(csvFilePath);
-         CSVReader csvReader = new CSVReader(fileReader)) {
-        
-        String[] record;
-        boolean isFirstRow = true;
-        int recordCount = 0;
-        
-        try {
-            while ((record = csvReader.readNext()) != null) {
-                // Skip header row
-                if (isFirstRow) {
-                    isFirstRow = false;
-                    log.info("Reading from CSV file: {}, Header: {}", csvFilePath, Arrays.toString(record));
-                    continue;
-                }
-                
-                recordCount++;
-                
-                if (record.length >= 6) {
-                    try {
-                        Long studentId = Long.parseLong(record[0].trim());
-                        String firstName = record[1].trim();
-                        String lastName = record[2].trim();
-                        LocalDate dob = LocalDate.parse(record[3].trim());
-                        String className = record[4].trim();
-                        Integer score = Integer.parseInt(record[5].trim());
-                        
-                        Student student = new Student(studentId, firstName, lastName, dob, className, score);
-                        students.add(student);
-                        
-                    } catch (Exception e) {
-                        log.warn("Error parsing record {}: {} - Record: {}", recordCount, e.getMessage(), Arrays.toString(record));
-                    }
-                }
-            }
-        } catch (CsvValidationException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-        
-        log.info("Successfully read {} students from CSV file: {}", students.size(), csvFilePath);
-        
+    // Parsed (memory-mapped, or decoded as a stream when compressed) only when the file is new or
+    // has changed since the cached snapshot
+    try {
+        return studentCsvCache.get(Paths.get(csvFilePath), StudentCsvScanner::scan);
     } catch (IOException e) {
         log.error("Error reading CSV file: {}", e.getMessage(), e);
+        return StudentCsvCache.Snapshot.EMPTY;
     }
-    
-    // Sort by studentId to maintain consistent ordering
-    students.sort((s1, s2) -> Long.compare(s1.getStudentId(), s2.getStudentId()));
-    
-    return students;
+}
+
+/**
+ * Temporary name a processed CSV is written under, moved to its final name once complete so
+ * the read endpoints never pick up (and cache) a half-written file.
+ */
+private static Path partialCsvFile(Path csvFile) {
+    return csvFile.resolveSibling(csvFile.getFileName() + ".tmp");
+}
+
+private static boolean isProcessedCsv(String fileName) {
+    String name = fileName.toLowerCase();
+    return name.startsWith("processed_")
+            && (name.endsWith(".csv") || name.endsWith(".csv" + CompressionCodec.GZIP.getFileSuffix())
+                    || name.endsWith(".csv" + CompressionCodec.ZSTD.getFileSuffix()));
 }
 
 private String findMostRecentCsvFile() {
@@ -179,21 +364,25 @@ private String findMostRecentCsvFile() {
             return null;
         }
         
-        // Find all CSV files and get the most recent one
-        Optional<Path> mostRecentFile = Files.list(logsDir)
-                .filter(path -> path.toString().toLowerCase().endsWith(".csv"))
-                .max((path1, path2) -> {
-                    try {
-                        return Files.getLastModifiedTime(path1).compareTo(Files.getLastModifiedTime(path2));
-                    } catch (IOException e) {
-                        log.error("Error comparing file times", e);
-                        return 0;
-                    }
-                });
+        // Find all processed CSV files, compressed or not, and get the most recent one; generated CSVs
+        // hold unprocessed scores
+        Optional<Path> mostRecentFile;
+        try (java.util.stream.Stream<Path> files = Files.list(logsDir)) {
+            mostRecentFile = files
+                    .filter(path -> isProcessedCsv(path.getFileName().toString()))
+                    .max((path1, path2) -> {
+                        try {
+                            return Files.getLastModifiedTime(path1).compareTo(Files.getLastModifiedTime(path2));
+                        } catch (IOException e) {
+                            log.error("Error comparing file times", e);
+                            return 0;
+                        }
+                    });
+        }
         
         if (mostRecentFile.isPresent()) {
             String filePath = mostRecentFile.get().toString();
-            log.info("Found most recent CSV file: {}", filePath);
+            log.debug("Found most recent CSV file: {}", filePath);
             return filePath;
         } else {
             log.warn("No CSV files found in directory: {}", logsDir);
@@ -206,70 +395,221 @@ private String findMostRecentCsvFile() {
     }
 }
     public String processExcelToCsv(MultipartFile file) throws IOException {
-        String csvFileName = "processed_" + System.currentTimeMillis() + ".csv";
+        return processExcelToCsv(file, CompressionCodec.NONE);
+    }
+    
+    public String processExcelToCsv(MultipartFile file, CompressionCodec compression) throws IOException {
+        // The event reader needs random access to the zip entries, so spool the upload to disk first
+        Path upload = spoolUpload(file, ".xlsx");
+        try {
+            return processExcelToCsv(upload, compression, JobProgress.NONE);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+    
+    public String processExcelToCsv(Path excelFile, JobProgress progress) throws IOException {
+        return processExcelToCsv(excelFile, CompressionCodec.NONE, progress);
+    }
+    
+    /**
+     * Converts the workbook, which may itself be gzip or zstd compressed, to a processed CSV.
+     * With a compression other than NONE the CSV is compressed as it is written, to
+     * processed_*.csv.gz or processed_*.csv.zst, which the CSV read endpoints read as well.
+     */
+    public String processExcelToCsv(Path excelFile, CompressionCodec compression, JobProgress progress)
+            throws IOException {
+        try (DataMetrics.Operation operation = dataMetrics.start("process", "xlsx")) {
+            String csvFileName;
+            CompressionCodec inputCompression = CompressionCodec.detect(excelFile);
+            if (inputCompression == CompressionCodec.NONE) {
+                csvFileName = processExcel(excelFile, compression, operation.track(progress));
+            } else {
+                // The event reader needs random access to the zip entries, so decode to a file first
+                Path decoded = Files.createTempFile("upload_", ".xlsx");
+                try {
+                    try (InputStream inputStream = inputCompression.decoder(Files.newInputStream(excelFile))) {
+                        Files.copy(inputStream, decoded, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    csvFileName = processExcel(decoded, compression, operation.track(progress));
+                } finally {
+                    Files.deleteIfExists(decoded);
+                }
+            }
+            operation.succeeded();
+            return csvFileName;
+        }
+    }
+    
+    private String processExcel(Path excelFile, CompressionCodec compression, JobProgress progress) throws IOException {
+        String csvFileName = "processed_" + System.currentTimeMillis() + ".csv" + compression.getFileSuffix();
         String csvFilePath = getFilePath(csvFileName);
+        Path partialFile = partialCsvFile(Paths.get(csvFilePath));
         
-        try (InputStream inputStream = file.getInputStream();
-             Workbook workbook = new XSSFWorkbook(inputStream);
-             FileWriter writer = new FileWriter(csvFilePath);
-             CSVWriter csvWriter = new CSVWriter(writer)) {
-            
-            Sheet sheet = workbook.getSheetAt(0);
+        try {
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    compression.encoder(Files.newOutputStream(partialFile)), StandardCharsets.UTF_8), 1 << 16);
+                 CSVWriter csvWriter = new CSVWriter(writer)) {
             
-            // Write header
-            Row headerRow = sheet.getRow(0);
-            String[] headers = new String[headerRow.getLastCellNum()];
-            for (int i = 0; i < headerRow.getLastCellNum(); i++) {
-                headers[i] = getCellValueAsString(headerRow.getCell(i));
-            }
-            csvWriter.writeNext(headers);
+                int[] columnCount = {-1};
             
-            // Process data rows
-            for (int rowIndex = 1; rowIndex <= sheet.getLastRowNum(); rowIndex++) {
-                Row row = sheet.getRow(rowIndex);
-                if (row == null) continue;
-                
-                String[] rowData = new String[headers.length];
-                for (int cellIndex = 0; cellIndex < headers.length; cellIndex++) {
-                    Cell cell = row.getCell(cellIndex);
-                    String cellValue = getCellValueAsString(cell);
-                    
-                    // Add 10 to score (assuming score is in column 5)
-                    if (cellIndex == 5 && cellValue != null && !cellValue.isEmpty()) {
-                        try {
-                            int score = Integer.parseInt(cellValue);
-                            rowData[cellIndex] = String.valueOf(score + 10);
-                        } catch (NumberFormatException e) {
-                            rowData[cellIndex] = cellValue;
-                        }
-                    } else {
-                        rowData[cellIndex] = cellValue;
+                // Rows are written to the CSV as soon as they are parsed from the sheet XML
+                XlsxStreamingReader.read(excelFile, (rowIndex, values) -> {
+                    if (columnCount[0] < 0) {
+                        // Write header
+                        columnCount[0] = values.length;
+                        csvWriter.writeNext(values);
+                        return;
                     }
-                }
-                csvWriter.writeNext(rowData);
                 
-                if (rowIndex % 10000 == 0) {
-                    log.info("Processed {} rows to CSV", rowIndex);
-                }
+                    // Add 10 to score
+                    String[] rowData = StudentRecords.toProcessedRecord(values, columnCount[0]);
+                    csvWriter.writeNext(rowData);
+                
+                    progress.advance(1);
+                    if (rowIndex % 1000 == 0) {
+                        progress.checkCancelled();
+                    }
+                    if (rowIndex % 10000 == 0) {
+                        log.info("Processed {} rows to CSV", rowIndex);
+                    }
+                });
             }
+            Files.move(partialFile, Paths.get(csvFilePath), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partialFile);
+            throw e;
         }
         
         log.info("CSV file processed successfully: {}", csvFilePath);
+        // The read endpoints serve the newest CSV from now on
+        resultCache.invalidate();
         return csvFileName;
     }
   
 public void uploadCsvToDatabase(MultipartFile file) throws IOException {
-    log.info("Starting CSV upload process. File: {}, Size: {} bytes", file.getOriginalFilename(), file.getSize());
+    uploadCsvToDatabase(file, IngestEngine.JPA);
+}
+
+public void uploadCsvToDatabase(MultipartFile file, IngestEngine engine) throws IOException {
+    uploadCsvToDatabase(file, engine, DuplicatePolicy.FAIL);
+}
+
+/**
+ * @return how many rows were skipped and updated as duplicates of an existing studentId
+ */
+public Map<String, Object> uploadCsvToDatabase(MultipartFile file, IngestEngine engine, DuplicatePolicy duplicates)
+        throws IOException {
+    try (InputStream inputStream = file.getInputStream()) {
+        return ingestCsv(inputStream, file.getOriginalFilename(), file.getSize(), engine, duplicates,
+                IngestCheckpoint.NONE, JobProgress.NONE);
+    }
+}
+
+public void uploadCsvToDatabase(Path csvFile, IngestEngine engine, JobProgress progress) throws IOException {
+    uploadCsvToDatabase(csvFile, engine, DuplicatePolicy.FAIL, progress);
+}
+
+public Map<String, Object> uploadCsvToDatabase(Path csvFile, IngestEngine engine, DuplicatePolicy duplicates,
+                                               JobProgress progress) throws IOException {
+    return uploadCsvToDatabase(csvFile, engine, duplicates, IngestCheckpoint.NONE, progress);
+}
+
+/**
+ * Ingests the file starting after the records the checkpoint says are committed, and records
+ * in it every batch committed from now on. The jpa and batch engines commit batch by batch and
+ * checkpoint after each; copy commits only at the end, so it resumes from the last checkpoint
+ * of an earlier attempt or from the start. Rows an earlier attempt committed but did not get to
+ * checkpoint are recognised and not written again. The pipelined engine commits batches out of
+ * order and cannot resume from a checkpoint.
+ */
+public Map<String, Object> uploadCsvToDatabase(Path csvFile, IngestEngine engine, DuplicatePolicy duplicates,
+                                               IngestCheckpoint checkpoint, JobProgress progress) throws IOException {
+    if (engine == IngestEngine.PIPELINED && checkpoint.getCommittingRecords() > 0) {
+        throw new IllegalArgumentException("The pipelined engine cannot resume from a checkpoint, use jpa, batch or copy");
+    }
+    try (InputStream inputStream = Files.newInputStream(csvFile)) {
+        return ingestCsv(inputStream, csvFile.getFileName().toString(), Files.size(csvFile), engine, duplicates,
+                checkpoint, progress);
+    }
+}
+
+private Map<String, Object> ingestCsv(InputStream input, String fileName, long size, IngestEngine engine,
+                                      DuplicatePolicy duplicates, IngestCheckpoint checkpoint,
+                                      JobProgress progress) throws IOException {
+    StudentStatsService.Update statsUpdate = studentStatsService.beginUpdate();
+    DuplicateFilter duplicateFilter = null;
+    boolean completed = false;
+    try (DataMetrics.Operation operation = dataMetrics.start("ingest", engine.name())) {
+        if (duplicates != DuplicatePolicy.FAIL) {
+            duplicateFilter = DuplicateFilter.load(duplicates, dataSource, jdbcBatchSize);
+        }
+        uploadCsvToDatabase(input, fileName, size, engine, duplicateFilter, checkpoint, operation.track(progress),
+                statsUpdate);
+        operation.succeeded();
+        completed = true;
+    } finally {
+        // Batches committed before a failure change the counts, statistics and cached results too.
+        // Updated rows replace values the statistics counted, so they are rebuilt after those
+        statsUpdate.finish(completed && (duplicateFilter == null || duplicateFilter.getUpdated() == 0));
+        studentCountCache.invalidate();
+        resultCache.invalidate();
+        if (duplicateFilter != null) {
+            dataMetrics.duplicates(engine.name(), duplicateFilter);
+        }
+    }
+    
+    Map<String, Object> result = new HashMap<>();
+    result.put("duplicates", duplicates.name().toLowerCase());
+    result.put("duplicatesSkipped", duplicateFilter != null ? duplicateFilter.getSkipped() : 0L);
+    result.put("duplicatesUpdated", duplicateFilter != null ? duplicateFilter.getUpdated() : 0L);
+    return result;
+}
+
+/**
+ * @param duplicates drops or routes duplicate studentIds before they reach the writers; null
+ *                   lets the unique index reject them
+ */
+private void uploadCsvToDatabase(InputStream input, String fileName, long size, IngestEngine engine,
+                                 DuplicateFilter duplicates, IngestCheckpoint checkpoint, JobProgress progress,
+                                 StudentStatsService.Update statsUpdate) throws IOException {
+    log.info("Starting CSV upload process. File: {}, Size: {} bytes, Engine: {}, Duplicates: {}", fileName, size,
+            engine, duplicates != null ? duplicates.getPolicy() : DuplicatePolicy.FAIL);
+    // Progress is measured on the bytes of the file as uploaded, compressed or not
+    InputStream inputStream = CompressionCodec.decode(progress.trackInput(input, size));
     
-    try (InputStream inputStream = file.getInputStream();
-         InputStreamReader reader = new InputStreamReader(inputStream);
-         CSVReader csvReader = new CSVReader(reader)) {
+    if (engine == IngestEngine.PIPELINED) {
+        int parserThreads = pipelineParserThreads > 0 ? pipelineParserThreads : Runtime.getRuntime().availableProcessors();
+        PipelinedCsvIngestor ingestor = new PipelinedCsvIngestor(() -> filterDuplicates(
+                new JdbcBatchStudentWriter(dataSource, jdbcBatchSize, policyOf(duplicates)), duplicates),
+                parserThreads, pipelineWriterThreads, pipelineQueueCapacity, ingestBatchSize, dataMetrics);
+        long written = ingestor.ingest(inputStream, progress, statsUpdate::record);
+        logDuplicates(duplicates);
+        log.info("CSV data uploaded to database successfully. Total records processed: {}, Successful: {}",
+                ingestor.getLinesRead(), written);
+        return;
+    }
+    
+    try (InputStreamReader reader = new InputStreamReader(inputStream);
+         CSVReader csvReader = new CSVReader(reader);
+         StudentWriter studentWriter = createStudentWriter(engine, duplicates)) {
         
         List<Student> students = new ArrayList<>();
         String[] record;
         int recordCount = 0;
         int successfulRecords = 0;
         boolean isFirstRow = true;
+        long resumeAfter = checkpoint.getCommittedRecords();
+        // Batches up to here may have been committed by the earlier attempt after its last
+        // checkpoint. A duplicate filter skips or updates their rows anyway; without one the
+        // unique index would reject them, so they are looked up first
+        long replayUpTo = duplicates == null ? checkpoint.getCommittingRecords() : resumeAfter;
+        // Progress counts the records consumed, rejected ones and duplicates the filter drops included
+        long advancedRecords = resumeAfter;
+        boolean checkpointing = studentWriter.commitsEachBatch();
+        if (resumeAfter > 0) {
+            log.info("Resuming upload after {} records committed by an earlier attempt", resumeAfter);
+        }
         
         // Read records one by one instead of loading all into memory
         while ((record = csvReader.readNext()) != null) {
@@ -281,80 +621,382 @@ public void uploadCsvToDatabase(MultipartFile file) throws IOException {
             }
             
             recordCount++;
+            if (recordCount <= resumeAfter) {
+                continue;
+            }
             log.debug("Processing record {}: {}", recordCount, Arrays.toString(record));
             
             if (record.length >= 6) {
                 try {
-                    Long studentId = Long.parseLong(record[0].trim());
-                    String firstName = record[1].trim();
-                    String lastName = record[2].trim();
-                    LocalDate dob = LocalDate.parse(record[3].trim());
-                    String className = record[4].trim();
-                    Integer score = Integer.parseInt(record[5].trim()) + 5; // Add 5 to score
+                    Student student = StudentRecords.fromUploadRecord(record); // Adds 5 to score
                     
                     // Debug log for first few records
                     if (recordCount <= 5) {
                         log.info("Parsed record {}: ID={}, Name={} {}, DOB={}, Class={}, Score={}", 
-                               recordCount, studentId, firstName, lastName, dob, className, score);
+                               recordCount, student.getStudentId(), student.getFirstName(), student.getLastName(),
+                               student.getDob(), student.getClassName(), student.getScore());
                     }
                     
-                    // Create student object - check if constructor exists
-                    Student student = new Student();
-                    student.setStudentId(studentId);
-                    student.setFirstName(firstName);
-                    student.setLastName(lastName);
-                    student.setDob(dob);
-                    student.setClassName(className);
-                    student.setScore(score);
-                    
                     students.add(student);
                     successfulRecords++;
-                    
-                    // Save in batches to avoid memory issues
-                    if (students.size() >= 1000) {
-                        try {
-                            studentRepository.saveAll(students);
-                            log.info("Saved batch of 1000 students to database. Total processed: {}", recordCount);
-                            students.clear();
-                        } catch (Exception e) {
-                            log.error("Error saving batch to database: {}", e.getMessage(), e);
-                            throw e; // Re-throw to stop processing
-                        }
-                    }
                 } catch (NumberFormatException e) {
+                    dataMetrics.parseError(engine.name(), e);
                     log.warn("Error parsing numbers in record {}: {} - Record: {}", recordCount, e.getMessage(), Arrays.toString(record));
                 } catch (java.time.format.DateTimeParseException e) {
+                    dataMetrics.parseError(engine.name(), e);
                     log.warn("Error parsing date in record {}: {} - Record: {}", recordCount, e.getMessage(), Arrays.toString(record));
                 } catch (Exception e) {
+                    dataMetrics.parseError(engine.name(), e);
                     log.error("Unexpected error processing record {}: {} - Record: {}", recordCount, e.getMessage(), Arrays.toString(record), e);
                 }
+                
+                // Save in batches to avoid memory issues
+                if (students.size() >= ingestBatchSize) {
+                    try {
+                        progress.checkCancelled();
+                        if (advancedRecords < replayUpTo && isCommitted(students)) {
+                            log.info("Records {} to {} were committed by the earlier attempt", advancedRecords + 1,
+                                    recordCount);
+                        } else {
+                            if (checkpointing) {
+                                checkpoint.committing(recordCount);
+                            }
+                            studentWriter.write(students);
+                            statsUpdate.record(students);
+                        }
+                        progress.advance(recordCount - advancedRecords);
+                        advancedRecords = recordCount;
+                        if (checkpointing) {
+                            checkpoint.committed(recordCount);
+                        }
+                        log.debug("Wrote batch of {} students. Total processed: {}", students.size(), recordCount);
+                        students.clear();
+                    } catch (Exception e) {
+                        log.error("Error saving batch to database: {}", e.getMessage(), e);
+                        throw e; // Re-throw to stop processing
+                    }
+                }
             } else {
+                dataMetrics.parseError(engine.name(), "columns");
                 log.warn("Record {} has insufficient columns ({}), expected 6 - Record: {}", 
                         recordCount, record.length, Arrays.toString(record));
             }
         }
         
         // Save remaining students
-        if (!students.isEmpty()) {
-            try {
-                studentRepository.saveAll(students);
-                log.info("Saved final batch of {} students to database", students.size());
-            } catch (Exception e) {
-                log.error("Error saving final batch to database: {}", e.getMessage(), e);
-                throw e;
+        try {
+            // Covers the final batch and, for writers that commit in finish, the whole upload
+            checkpoint.committing(recordCount);
+            if (!students.isEmpty() && !(advancedRecords < replayUpTo && isCommitted(students))) {
+                studentWriter.write(students);
+                statsUpdate.record(students);
+                log.info("Wrote final batch of {} students", students.size());
             }
+            progress.advance(recordCount - advancedRecords);
+            studentWriter.finish();
+            checkpoint.committed(recordCount);
+        } catch (Exception e) {
+            log.error("Error saving final batch to database: {}", e.getMessage(), e);
+            throw e;
         }
         
+        logDuplicates(duplicates);
         log.info("CSV data uploaded to database successfully. Total records processed: {}, Successful: {}", 
                 recordCount, successfulRecords);
                 
-    } catch (Exception e) {
-        log.error("Error during CSV upload process: {}", e.getMessage(), e);
+    } catch (CsvValidationException e) {
+        throw new IOException("Invalid CSV file: " + e.getMessage(), e);
+    }
+}
+
+/**
+ * True when every student of the batch is already in the table: the batch was committed by an
+ * earlier attempt that stopped before checkpointing it. Some but not all of them means real
+ * duplicates, which the unique index rejects as usual.
+ */
+private boolean isCommitted(List<Student> students) throws IOException {
+    Long[] ids = students.stream().map(Student::getStudentId).distinct().toArray(Long[]::new);
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement statement = connection.prepareStatement(
+                 "SELECT count(*) FROM students WHERE student_id = ANY (?)")) {
+        statement.setArray(1, connection.createArrayOf("bigint", ids));
+        try (ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1) == ids.length;
+        }
+    } catch (SQLException e) {
+        throw new IOException("Could not look up the records of the earlier attempt: " + e.getMessage(), e);
+    }
+}
+
+/**
+ * Generates recordCount students, or reads them from excelFile when it is not null, and writes
+ * them straight to the database. Both score transforms are applied on the way, so the table
+ * ends up as after /generate-excel, /process-excel and /upload-csv in a row, without writing
+ * and re-parsing a workbook and a CSV. With teeCsv the processed rows are also written to the
+ * processed_*.csv file /process-excel would have produced, which the CSV read endpoints then serve.
+ *
+ * @param seed seed of the generated rows, null for random data; ignored for an Excel file
+ * @return the number of rows written and the name of the CSV copy, if any
+ */
+public Map<String, Object> runPipeline(Path excelFile, int recordCount, Long seed, IngestEngine engine,
+                                       boolean teeCsv, JobProgress progress) throws IOException {
+    if (engine == IngestEngine.PIPELINED) {
+        throw new IllegalArgumentException("The pipelined engine ingests CSV files, use jpa, batch or copy");
+    }
+    log.info("Starting {} pipeline to the database, engine: {}, CSV copy: {}",
+            excelFile != null ? "Excel" : "generation", engine, teeCsv);
+    long start = System.nanoTime();
     
+    String csvFileName = teeCsv ? "processed_" + System.currentTimeMillis() + ".csv" : null;
+    Path csvPartialFile = teeCsv ? partialCsvFile(Paths.get(getFilePath(csvFileName))) : null;
+    StudentStatsService.Update statsUpdate = studentStatsService.beginUpdate();
+    boolean completed = false;
+    long written;
+    try {
+        try (DataMetrics.Operation operation = dataMetrics.start("pipeline", engine.name());
+             CSVWriter csvCopy = teeCsv ? new CSVWriter(Files.newBufferedWriter(csvPartialFile, StandardCharsets.UTF_8)) : null;
+             StudentWriter studentWriter = createStudentWriter(engine)) {
+            JobProgress trackedProgress = operation.track(progress);
+            StudentBatcher batcher = new StudentBatcher(studentWriter, statsUpdate, trackedProgress);
+            if (excelFile != null) {
+                pipeExcel(excelFile, engine, csvCopy, batcher);
+            } else {
+                pipeGenerated(recordCount, seed, csvCopy, batcher, trackedProgress);
+            }
+            written = batcher.finish();
+            operation.succeeded();
+        }
+        if (csvPartialFile != null) {
+            Files.move(csvPartialFile, Paths.get(getFilePath(csvFileName)), StandardCopyOption.ATOMIC_MOVE);
+        }
+        completed = true;
+    } catch (IOException | RuntimeException e) {
+        if (csvPartialFile != null) {
+            Files.deleteIfExists(csvPartialFile);
+        }
+        throw e;
+    } finally {
+        statsUpdate.finish(completed);
+        studentCountCache.invalidate();
+        resultCache.invalidate();
+    }
+    
+    log.info("Pipeline wrote {} students to the database in {} ms", written, (System.nanoTime() - start) / 1_000_000);
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("rowsWritten", written);
+    result.put("csvFileName", csvFileName);
+    return result;
+}
+
+private void pipeGenerated(int recordCount, Long seed, CSVWriter csvCopy, StudentBatcher batcher,
+                           JobProgress progress) throws IOException {
+    progress.setTotalRows(recordCount);
+    long rowSeed = seed != null ? seed : StudentRowGenerator.randomSeed();
+    if (csvCopy != null) {
+        csvCopy.writeNext(GENERATED_HEADERS);
+    }
+    
+    try (StudentRowGenerator students = new StudentRowGenerator(rowSeed, 1, recordCount)) {
+        while (students.next()) {
+            int processedScore = students.getScore() + StudentRecords.PROCESSING_SCORE_BONUS;
+            if (csvCopy != null) {
+                csvCopy.writeNext(new String[] {String.valueOf(students.getStudentId()), students.getFirstName(),
+                        students.getLastName(), students.getDobString(), students.getClassName(),
+                        String.valueOf(processedScore)});
+            }
+            batcher.add(new Student(students.getStudentId(), students.getFirstName(), students.getLastName(),
+                    students.getDob(), students.getClassName(), processedScore + StudentRecords.UPLOAD_SCORE_BONUS));
+        }
+    }
+}
+
+private void pipeExcel(Path excelFile, IngestEngine engine, CSVWriter csvCopy, StudentBatcher batcher)
+        throws IOException {
+    int[] columnCount = {-1};
+    long[] rejected = {0};
+    
+    XlsxStreamingReader.read(excelFile, (rowIndex, values) -> {
+        if (columnCount[0] < 0) {
+            columnCount[0] = values.length;
+            if (csvCopy != null) {
+                csvCopy.writeNext(values);
+            }
+            return;
+        }
+        
+        // Exactly the record /process-excel writes and /upload-csv reads back
+        String[] record = StudentRecords.toProcessedRecord(values, columnCount[0]);
+        if (csvCopy != null) {
+            csvCopy.writeNext(record);
+        }
+        if (record.length < 6) {
+            rejected[0]++;
+            dataMetrics.parseError(engine.name(), "columns");
+            return;
+        }
+        try {
+            batcher.add(StudentRecords.fromUploadRecord(record));
+        } catch (NumberFormatException | java.time.format.DateTimeParseException e) {
+            rejected[0]++;
+            dataMetrics.parseError(engine.name(), e);
+            log.warn("Skipping sheet row {}: {} - Record: {}", rowIndex, e.getMessage(), Arrays.toString(record));
+        }
+    });
+    
+    if (rejected[0] > 0) {
+        log.warn("Skipped {} sheet rows that could not be converted to students", rejected[0]);
+    }
+}
+
+/**
+ * Hands students to a writer in batches of ingestBatchSize, recording every written batch in
+ * the statistics update and the job progress.
+ */
+private final class StudentBatcher {
+    
+    private final StudentWriter writer;
+    private final StudentStatsService.Update statsUpdate;
+    private final JobProgress progress;
+    private final List<Student> batch = new ArrayList<>();
+    
+    StudentBatcher(StudentWriter writer, StudentStatsService.Update statsUpdate, JobProgress progress) {
+        this.writer = writer;
+        this.statsUpdate = statsUpdate;
+        this.progress = progress;
+    }
+    
+    void add(Student student) throws IOException {
+        batch.add(student);
+        if (batch.size() >= ingestBatchSize) {
+            flush();
+        }
+    }
+    
+    long finish() throws IOException {
+        flush();
+        return writer.finish();
+    }
+    
+    private void flush() throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        progress.checkCancelled();
+        writer.write(batch);
+        statsUpdate.record(batch);
+        progress.advance(batch.size());
+        batch.clear();
+    }
+}
+
+/**
+ * Copies an uploaded file to a temporary file, for work that outlives the request.
+ */
+public Path spoolUpload(MultipartFile file, String suffix) throws IOException {
+    Path upload = Files.createTempFile("upload_", suffix);
+    try {
+        file.transferTo(upload);
+    } catch (IOException | RuntimeException e) {
+        Files.deleteIfExists(upload);
+        throw e;
+    }
+    return upload;
+}
+
+private StudentWriter createStudentWriter(IngestEngine engine) throws IOException {
+    return createStudentWriter(engine, null);
+}
+
+private StudentWriter createStudentWriter(IngestEngine engine, DuplicateFilter duplicates) throws IOException {
+    StudentWriter writer = createUntimedStudentWriter(engine, policyOf(duplicates));
+    return dataMetrics.timeBatches(filterDuplicates(writer, duplicates), engine.name());
+}
+
+private StudentWriter createUntimedStudentWriter(IngestEngine engine, DuplicatePolicy duplicates) throws IOException {
+    switch (engine) {
+        case COPY:
+            return new CopyStudentWriter(dataSource);
+        case BATCH:
+            return new JdbcBatchStudentWriter(dataSource, jdbcBatchSize, duplicates);
+        case JPA:
+        default:
+            return new JpaStudentWriter(studentRepository, entityManager, new TransactionTemplate(transactionManager));
+    }
+}
+
+private static StudentWriter filterDuplicates(StudentWriter writer, DuplicateFilter duplicates) {
+    return duplicates != null ? duplicates.wrap(writer) : writer;
+}
+
+/**
+ * ON CONFLICT behaviour of the JDBC inserts: the filter has already routed the rows to update,
+ * so the remaining conflicts can only come from concurrent uploads and are skipped.
+ */
+private static DuplicatePolicy policyOf(DuplicateFilter duplicates) {
+    return duplicates != null ? DuplicatePolicy.SKIP : DuplicatePolicy.FAIL;
+}
+
+private static void logDuplicates(DuplicateFilter duplicates) {
+    if (duplicates != null) {
+        log.info("Duplicate student ids: {} skipped, {} updated", duplicates.getSkipped(), duplicates.getUpdated());
     }
 }
     public Page<Student> getStudentsWithFilters(Long studentId, String className, Pageable pageable) {
-        return studentRepository.findStudentsWithFilters(studentId, className, pageable);
+        // A dedicated query per filter combination, each with an index to use
+        if (studentId != null && className != null) {
+            return studentRepository.findByStudentIdAndClassName(studentId, className, pageable);
+        }
+        if (studentId != null) {
+            return studentRepository.findByStudentId(studentId, pageable);
+        }
+        if (className != null) {
+            return studentRepository.findByClassNameOrderByStudentIdAsc(className, pageable);
+        }
+        return studentRepository.findAllByOrderByStudentIdAsc(pageable);
+    }
+    
+    /**
+     * Up to limit students with a studentId greater than afterStudentId, in studentId order.
+     * Pass null to start from the first student.
+     */
+    public List<Student> getStudentsAfter(Long afterStudentId, Long studentId, String className, int limit) {
+        long after = afterStudentId != null ? afterStudentId : Long.MIN_VALUE;
+        
+        if (studentId != null) {
+            // At most one row, straight from the unique index
+            return studentRepository.findByStudentId(studentId)
+                    .filter(student -> student.getStudentId() > after)
+                    .filter(student -> className == null || className.equals(student.getClassName()))
+                    .map(List::of)
+                    .orElse(List.of());
+        }
+        if (className != null) {
+            return studentRepository.findByClassNameAndStudentIdGreaterThanOrderByStudentIdAsc(className, after,
+                    Limit.of(limit));
+        }
+        return studentRepository.findByStudentIdGreaterThanOrderByStudentIdAsc(after, Limit.of(limit));
+    }
+    
+    /**
+     * Number of students matching the filters. With cached=true the count of a class filter is
+     * reused for a while instead of being recounted on every page.
+     */
+    public long countStudentsWithFilters(Long studentId, String className, boolean cached) {
+        if (studentId != null) {
+            // Matches at most one row through the unique index, nothing to save
+            return className != null
+                    ? studentRepository.countByStudentIdAndClassName(studentId, className)
+                    : studentRepository.countByStudentId(studentId);
+        }
+        if (!cached) {
+            return countStudentsByClass(className);
+        }
+        return studentCountCache.get(className, () -> countStudentsByClass(className));
+    }
+    
+    private long countStudentsByClass(String className) {
+        return className != null ? studentRepository.countByClassName(className) : studentRepository.count();
     }
     
     public List<Student> getAllStudents() {
@@ -372,38 +1014,130 @@ public void uploadCsvToDatabase(MultipartFile file) throws IOException {
     return studentRepository.findAllByOrderByStudentIdAsc();
 }
     
+    /**
+     * Per-class statistics of the most recent CSV file, empty when there is none.
+     */
+    public StudentStatistics getCsvStatistics() {
+        return getCsvSnapshot().getStatistics();
+    }
+    
+    /**
+     * Per-class statistics of the students table, kept current by the uploads.
+     */
+    public StudentStatistics getDatabaseStatistics() {
+        return studentStatsService.getStatistics();
+    }
+    
+    /**
+     * Class names present in the data the read endpoints serve (CSV first, then database),
+     * or the generated class names when there is no data yet.
+     */
+    public List<String> getClassNames() {
+        StudentStatistics statistics = getCsvStatistics();
+        if (statistics.isEmpty()) {
+            statistics = getDatabaseStatistics();
+        }
+        return statistics.isEmpty() ? Arrays.asList(StudentRowGenerator.getClassNames()) : statistics.getClassNames();
+    }
+    
     public List<Student> getStudentsByClassFromCsv(String className) {
-    List<Student> allStudents = getAllStudentsFromCsv();
+    return getCsvSnapshot().getStudentsByClass(className);
+}
+
+/**
+ * Cursor over the students to export, read from the cached CSV columns when a CSV file is
+ * available and from the database otherwise. The caller must close it.
+ */
+public StudentCursor openStudentCursor(String className) {
+    return openStudentCursor(getCsvSnapshot(), className);
+}
+
+private StudentCursor openStudentCursor(StudentCsvCache.Snapshot snapshot, String className) {
+    if (!snapshot.isEmpty()) {
+        return snapshot.cursor(className);
+    }
     
+    // Fallback to database, streamed in fetch-size chunks
     if (className == null || className.isEmpty()) {
-        return allStudents;
+        return new DatabaseStudentCursor(transactionManager, entityManager,
+                studentRepository::streamAllByOrderByStudentIdAsc);
     }
-    
-    return allStudents.stream()
-            .filter(student -> className.equals(student.getClassName()))
-            .sorted((s1, s2) -> Long.compare(s1.getStudentId(), s2.getStudentId()))
-            .collect(java.util.stream.Collectors.toList());
+    return new DatabaseStudentCursor(transactionManager, entityManager,
+            () -> studentRepository.streamByClassNameOrderByStudentIdAsc(className));
 }
 
 public List<Student> getStudentsByClass(String className) {
     // Try CSV first
-    List<Student> studentsFromCsv = getStudentsByClassFromCsv(className);
+    StudentCsvCache.Snapshot snapshot = getCsvSnapshot();
     
-    if (!studentsFromCsv.isEmpty() || getAllStudentsFromCsv().isEmpty() == false) {
-        return studentsFromCsv;
+    if (!snapshot.isEmpty()) {
+        return snapshot.getStudentsByClass(className);
     }
     
     // Fallback to database
     if (className == null || className.isEmpty()) {
-        return getAllStudents();
+        return studentRepository.findAllByOrderByStudentIdAsc();
     }
     return studentRepository.findByClassNameOrderByStudentIdAsc(className);
 }
     
-    public byte[] exportToExcel(List<Student> students) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            
+    /**
+     * Writes the students of the class (all students when className is empty) to the stream
+     * in the given format: excel, csv or pdf. Repeated exports of unchanged data are served
+     * from the result cache.
+     */
+    public void exportStudents(String format, String className, OutputStream outputStream) throws IOException {
+        exportStudents(format, className, CompressionCodec.NONE, outputStream);
+    }
+    
+    /**
+     * @param encoding compression of the bytes written, for a response with that Content-Encoding;
+     *                 exports are cached as they are sent, so a cached compressed export is
+     *                 served without compressing it again
+     */
+    public void exportStudents(String format, String className, CompressionCodec encoding, OutputStream outputStream)
+            throws IOException {
+        StudentCsvCache.Snapshot snapshot = getCsvSnapshot();
+        String source = snapshot.isEmpty() ? "database" : snapshot.getSourceId();
+        String query = ResultCache.key("export", format, className != null ? className : "", source, encoding);
+        
+        long start = System.nanoTime();
+        boolean[] rendered = {false};
+        CountingOutputStream counted = new CountingOutputStream(outputStream);
+        resultCache.writeExport(query, counted, target -> {
+            rendered[0] = true;
+            // Closing the encoder ends the compressed data but must not close the response
+            try (StudentCursor students = openStudentCursor(snapshot, className);
+                 OutputStream out = encoding.encoder(CloseShieldOutputStream.wrap(target))) {
+                switch (format) {
+                    case "excel":
+                        exportToExcel(students, out);
+                        break;
+                    case "csv":
+                        exportToCsv(students, out);
+                        break;
+                    case "pdf":
+                        exportToPdf(students, out);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown export format: " + format);
+                }
+            } catch (DocumentException e) {
+                throw new IOException("Error rendering PDF export: " + e.getMessage(), e);
+            }
+        });
+        dataMetrics.export(format, !rendered[0], counted.getByteCount(), System.nanoTime() - start);
+    }
+    
+    /**
+     * Writes the students to the given stream as an .xlsx workbook. Rows are spilled to a
+     * temporary file as they are written, so memory use does not depend on the row count.
+     */
+    public void exportToExcel(StudentCursor students, OutputStream outputStream) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(excelRowWindowSize);
+        workbook.setCompressTempFiles(true);
+        
+        try {
             Sheet sheet = workbook.createSheet("Students Report");
             
             // Create header style
@@ -415,122 +1149,152 @@ public List<Student> getStudentsByClass(String className) {
             // Create header
             Row headerRow = sheet.createRow(0);
             String[] headers = {"Student ID", "First Name", "Last Name", "DOB", "Class", "Score"};
+            int[] maxChars = new int[headers.length];
             for (int i = 0; i < headers.length; i++) {
                 Cell cell = headerRow.createCell(i);
                 cell.setCellValue(headers[i]);
                 cell.setCellStyle(headerStyle);
+                maxChars[i] = headers[i].length();
             }
             
             // Create data rows
-            for (int i = 0; i < students.size(); i++) {
-                Student student = students.get(i);
-                Row row = sheet.createRow(i + 1);
-                row.createCell(0).setCellValue(student.getStudentId());
-                row.createCell(1).setCellValue(student.getFirstName());
-                row.createCell(2).setCellValue(student.getLastName());
-                row.createCell(3).setCellValue(student.getDob().toString());
-                row.createCell(4).setCellValue(student.getClassName());
-                row.createCell(5).setCellValue(student.getScore());
+            int rowIndex = 0;
+            while (students.next()) {
+                Row row = sheet.createRow(++rowIndex);
+                long studentId = students.getStudentId();
+                String firstName = students.getFirstName();
+                String lastName = students.getLastName();
+                String className = students.getClassName();
+                int score = students.getScore();
+                
+                row.createCell(0).setCellValue(studentId);
+                row.createCell(1).setCellValue(firstName);
+                row.createCell(2).setCellValue(lastName);
+                row.createCell(3).setCellValue(students.getDob().toString());
+                row.createCell(4).setCellValue(className);
+                row.createCell(5).setCellValue(score);
+                
+                maxChars[0] = Math.max(maxChars[0], stringSize(studentId));
+                maxChars[1] = Math.max(maxChars[1], firstName.length());
+                maxChars[2] = Math.max(maxChars[2], lastName.length());
+                maxChars[4] = Math.max(maxChars[4], className.length());
+                maxChars[5] = Math.max(maxChars[5], stringSize(score));
             }
             
-            // Auto-size columns
+            // Size columns from the longest value seen, autoSizeColumn needs every row in memory
+            maxChars[3] = Math.max(maxChars[3], 10);
             for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+                sheet.setColumnWidth(i, Math.min(maxChars[i] + 2, 255) * 256);
             }
             
             workbook.write(outputStream);
-            return outputStream.toByteArray();
-        }
-    }
-    
-    public byte[] exportToCsv(List<Student> students) throws IOException {
-        try (StringWriter writer = new StringWriter();
-             CSVWriter csvWriter = new CSVWriter(writer)) {
-            
-            // Write header
-            String[] headers = {"Student ID", "First Name", "Last Name", "DOB", "Class", "Score"};
-            csvWriter.writeNext(headers);
-            
-            // Write data
-            for (Student student : students) {
-                String[] data = {
-                    student.getStudentId().toString(),
-                    student.getFirstName(),
-                    student.getLastName(),
-                    student.getDob().toString(),
-                    student.getClassName(),
-                    student.getScore().toString()
-                };
-                csvWriter.writeNext(data);
-            }
-            
-            return writer.toString().getBytes();
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
     }
     
-    public byte[] exportToPdf(List<Student> students) throws DocumentException, IOException {
-    Document document = new Document();
-    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-        PdfWriter.getInstance(document, outputStream);
-        document.open();
-        
-        // Add title
-        Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
-        Paragraph title = new Paragraph("Student Report", titleFont);
-        title.setAlignment(Element.ALIGN_CENTER);
-        document.add(title);
-        document.add(new Paragraph("\n"));
+    public void exportToCsv(StudentCursor students, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 1 << 16);
+        CSVWriter csvWriter = new CSVWriter(writer);
         
-        // Create table
-        PdfPTable table = new PdfPTable(6);
-        table.setWidthPercentage(100);
-        
-        // Add headers
+        // Write header
         String[] headers = {"Student ID", "First Name", "Last Name", "DOB", "Class", "Score"};
-        Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD);
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(cell);
-        }
+        csvWriter.writeNext(headers);
         
-        // Add data
-        for (Student student : students) {
-            table.addCell(student.getStudentId().toString());
-            table.addCell(student.getFirstName());
-            table.addCell(student.getLastName());
-            table.addCell(student.getDob().toString());
-            table.addCell(student.getClassName());
-            table.addCell(student.getScore().toString());
+        // Write data, reusing one array for every row
+        String[] data = new String[headers.length];
+        while (students.next()) {
+            data[0] = String.valueOf(students.getStudentId());
+            data[1] = students.getFirstName();
+            data[2] = students.getLastName();
+            data[3] = students.getDob().toString();
+            data[4] = students.getClassName();
+            data[5] = String.valueOf(students.getScore());
+            csvWriter.writeNext(data);
         }
         
-        document.add(table);
-        document.close();
-        
-        return outputStream.toByteArray();
+        // Flush only: the caller owns the output stream
+        csvWriter.flush();
     }
-}
     
-    private String generateRandomString(int minLength, int maxLength) {
-        int length = ThreadLocalRandom.current().nextInt(minLength, maxLength + 1);
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < length; i++) {
-            char c = (char) (ThreadLocalRandom.current().nextInt(26) + 'a');
-            sb.append(c);
+    /**
+     * Writes the students as a PDF report. The table is built as an incomplete "large" table
+     * and added to the document every pdfChunkRows rows, which lays out and writes the
+     * finished pages to the stream and drops their rows, so memory use stays bounded
+     * whatever the row count. The header row repeats on every page and every page is numbered.
+     */
+    public void exportToPdf(StudentCursor students, OutputStream outputStream) throws DocumentException, IOException {
+    Document document = new Document();
+    PdfWriter pdfWriter = PdfWriter.getInstance(document, outputStream);
+    pdfWriter.setCloseStream(false);
+    pdfWriter.setPageEvent(new PageNumberFooter());
+    document.open();
+    
+    // Add title
+    Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
+    Paragraph title = new Paragraph("Student Report", titleFont);
+    title.setAlignment(Element.ALIGN_CENTER);
+    document.add(title);
+    document.add(new Paragraph("\n"));
+    
+    // Create table, flushed to the document in chunks
+    PdfPTable table = new PdfPTable(6);
+    table.setWidthPercentage(100);
+    table.setComplete(false);
+    table.setHeaderRows(1);
+    
+    // Add headers
+    String[] headers = {"Student ID", "First Name", "Last Name", "DOB", "Class", "Score"};
+    Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD);
+    for (String header : headers) {
+        PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        table.addCell(cell);
+    }
+    
+    // Add data: every cell is a copy of the table's default cell, with one shared font
+    Font bodyFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
+    int chunkRows = Math.max(pdfChunkRows, 1);
+    long rowCount = 0;
+    while (students.next()) {
+        table.addCell(new Phrase(String.valueOf(students.getStudentId()), bodyFont));
+        table.addCell(new Phrase(students.getFirstName(), bodyFont));
+        table.addCell(new Phrase(students.getLastName(), bodyFont));
+        table.addCell(new Phrase(students.getDob().toString(), bodyFont));
+        table.addCell(new Phrase(students.getClassName(), bodyFont));
+        table.addCell(new Phrase(String.valueOf(students.getScore()), bodyFont));
+        
+        if (++rowCount % chunkRows == 0) {
+            document.add(table);
         }
-        return sb.toString();
     }
     
-    private LocalDate generateRandomDate() {
-        LocalDate start = LocalDate.of(2000, 1, 1);
-        LocalDate end = LocalDate.of(2010, 12, 31);
-        long startEpochDay = start.toEpochDay();
-        long endEpochDay = end.toEpochDay();
-        long randomDay = ThreadLocalRandom.current().nextLong(startEpochDay, endEpochDay + 1);
-        return LocalDate.ofEpochDay(randomDay);
+    table.setComplete(true);
+    document.add(table);
+    document.close();
+}
+
+/**
+ * Writes "Page n" at the bottom of every page of the PDF report.
+ */
+private static class PageNumberFooter extends PdfPageEventHelper {
+    
+    private final Font font = FontFactory.getFont(FontFactory.HELVETICA, 8);
+    
+    @Override
+    public void onEndPage(PdfWriter writer, Document document) {
+        ColumnText.showTextAligned(writer.getDirectContent(), Element.ALIGN_CENTER,
+                new Phrase("Page " + writer.getPageNumber(), font),
+                (document.left() + document.right()) / 2, document.bottom() - 20, 0);
     }
+}
+
+private static int stringSize(long value) {
+    return Long.toString(value).length();
+}
     
-   private String getFilePath(String fileName) {
+   String getFilePath(String fileName) {
     String os = System.getProperty("os.name").toLowerCase();
 
     Path basePath;
@@ -555,24 +1319,4 @@ public List<Student> getStudentsByClass(String className) {
 
     return basePath.resolve(fileName).toString();
 }
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) return "";
-        
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getLocalDateTimeCellValue().toLocalDate().toString();
-                } else {
-                    return String.valueOf((long) cell.getNumericCellValue());
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return "";
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Cursor over one of the streaming repository queries. A read-only transaction, and with it
+ * the connection and the server-side cursor, stays open until {@link #close()}, so rows are
+ * fetched in fetch-size chunks instead of being loaded all at once. Every entity is detached
+ * as soon as the cursor moves past it, which keeps the persistence context empty.
+ *
+ * The transaction is bound to the opening thread: open, read and close it on the same one.
+ */
+public class DatabaseStudentCursor implements StudentCursor {
+
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final TransactionStatus transaction;
+    private final Stream<Student> stream;
+    private final Iterator<Student> students;
+    private Student current;
+
+    public DatabaseStudentCursor(PlatformTransactionManager transactionManager, EntityManager entityManager,
+                                 Supplier<Stream<Student>> query) {
+        this.transactionManager = transactionManager;
+        this.entityManager = entityManager;
+
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setReadOnly(true);
+        this.transaction = transactionManager.getTransaction(definition);
+        try {
+            this.stream = query.get();
+            this.students = stream.iterator();
+        } catch (RuntimeException e) {
+            transactionManager.rollback(transaction);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean next() {
+        if (current != null) {
+            entityManager.detach(current);
+        }
+        current = students.hasNext() ? students.next() : null;
+        return current != null;
+    }
+
+    @Override
+    public long getStudentId() {
+        return current.getStudentId();
+    }
+
+    @Override
+    public String getFirstName() {
+        return current.getFirstName();
+    }
+
+    @Override
+    public String getLastName() {
+        return current.getLastName();
+    }
+
+    @Override
+    public LocalDate getDob() {
+        return current.getDob();
+    }
+
+    @Override
+    public String getClassName() {
+        return current.getClassName();
+    }
+
+    @Override
+    public int getScore() {
+        return current.getScore();
+    }
+
+    @Override
+    public void close() {
+        try {
+            stream.close();
+        } finally {
+            if (!transaction.isCompleted()) {
+                // Nothing was written, ending the read-only transaction just releases the connection
+                transactionManager.commit(transaction);
+            }
+        }
+    }
+}
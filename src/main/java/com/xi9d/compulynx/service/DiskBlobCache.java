@@ -0,0 +1,147 @@
+package com.xi9d.compulynx.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache of files in one directory, bounded by their total size. Used as
+ * the second tier for rendered exports too large to keep on the heap. The index lives in
+ * memory, so files left over from a previous run are deleted on startup; the directory
+ * should not be used for anything else.
+ *
+ * Instances are thread safe.
+ */
+@Slf4j
+public class DiskBlobCache {
+
+    private static final String SUFFIX = ".blob";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Cache key -> file size, in access order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private long hits;
+    private long misses;
+    private long puts;
+    private long evictions;
+
+    public DiskBlobCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        // Blobs and partial captures of a previous run
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.{blob,tmp}")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Opens the cached file of the key, or returns null. The stream stays readable even if the
+     * entry is evicted while it is being read.
+     */
+    public synchronized InputStream open(String key) {
+        if (entries.get(key) != null) {
+            try {
+                InputStream in = Files.newInputStream(fileOf(key));
+                hits++;
+                return in;
+            } catch (NoSuchFileException e) {
+                bytes -= entries.remove(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Moves the given file into the cache under the key, evicting older entries as needed.
+     */
+    public synchronized void put(String key, Path file) throws IOException {
+        long size = Files.size(file);
+        if (size > maxBytes) {
+            Files.deleteIfExists(file);
+            return;
+        }
+
+        Files.move(file, fileOf(key), StandardCopyOption.REPLACE_EXISTING);
+        Long previous = entries.put(key, size);
+        if (previous != null) {
+            bytes -= previous;
+        }
+        bytes += size;
+        puts++;
+
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            Files.deleteIfExists(fileOf(entry.getKey()));
+            bytes -= entry.getValue();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        for (String key : entries.keySet()) {
+            try {
+                Files.deleteIfExists(fileOf(key));
+            } catch (IOException e) {
+                log.warn("Could not delete cached export {}: {}", fileOf(key), e.getMessage());
+            }
+        }
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("directory", directory.toString());
+        stats.put("entries", entries.size());
+        stats.put("bytes", bytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses > 0 ? Math.round(hits * 1000.0 / (hits + misses)) / 1000.0 : 0.0);
+        stats.put("puts", puts);
+        stats.put("evictions", evictions);
+        return stats;
+    }
+
+    private Path fileOf(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest) + SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps duplicate studentIds of one upload away from the writers, so a file that repeats rows
+ * already in the table neither fails on the unique index nor pays a failed round trip per row.
+ *
+ * The studentIds in the table are loaded into a {@link StudentIdSet} once, before the upload
+ * starts, and every studentId the upload writes is added to a second set. A row whose studentId
+ * was already written by the upload is dropped. A row whose studentId is in the table is dropped
+ * with {@link DuplicatePolicy#SKIP}, or handed to a JDBC writer that upserts it with
+ * {@link DuplicatePolicy#UPDATE}. Only new studentIds reach the engine's own writer, so COPY and
+ * JPA, which have no ON CONFLICT, work with either policy; the JDBC engines still add the
+ * clause, for rows another upload inserts in the meantime.
+ *
+ * One filter is shared by all writers of an upload and is thread safe.
+ */
+@Slf4j
+public class DuplicateFilter {
+
+    private static final String LOAD_IDS_SQL = "SELECT student_id FROM students WHERE student_id IS NOT NULL";
+    private static final int LOAD_FETCH_SIZE = 10_000;
+
+    private final DuplicatePolicy policy;
+    private final DataSource dataSource;
+    private final int jdbcBatchSize;
+    private final StudentIdSet existingIds;
+    private final StudentIdSet writtenIds = new StudentIdSet();
+
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong updated = new AtomicLong();
+
+    private DuplicateFilter(DuplicatePolicy policy, DataSource dataSource, int jdbcBatchSize, StudentIdSet existingIds) {
+        this.policy = policy;
+        this.dataSource = dataSource;
+        this.jdbcBatchSize = jdbcBatchSize;
+        this.existingIds = existingIds;
+    }
+
+    /**
+     * Loads the studentIds of the students table for an upload with the given policy, which
+     * must not be FAIL.
+     */
+    public static DuplicateFilter load(DuplicatePolicy policy, DataSource dataSource, int jdbcBatchSize)
+            throws IOException {
+        if (policy == DuplicatePolicy.FAIL) {
+            throw new IllegalArgumentException("Duplicates fail the upload, there is nothing to filter");
+        }
+        long start = System.nanoTime();
+        StudentIdSet ids = new StudentIdSet();
+        try (Connection connection = dataSource.getConnection()) {
+            // The driver only streams a result set with a fetch size inside a transaction
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(LOAD_IDS_SQL)) {
+                statement.setFetchSize(LOAD_FETCH_SIZE);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        ids.add(resultSet.getLong(1));
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Unable to load existing student ids: " + e.getMessage(), e);
+        }
+        log.info("Loaded {} existing student ids ({} KB) in {} ms", ids.size(), ids.getMemoryBytes() / 1024,
+                (System.nanoTime() - start) / 1_000_000);
+        return new DuplicateFilter(policy, dataSource, jdbcBatchSize, ids);
+    }
+
+    public DuplicatePolicy getPolicy() {
+        return policy;
+    }
+
+    /** Rows dropped so far, repeats within the upload included. */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /** Rows routed to the upsert writer so far. */
+    public long getUpdated() {
+        return updated.get();
+    }
+
+    /**
+     * Decorates one writer of the upload. Duplicates are removed from every batch before it is
+     * passed on, so a caller looking at the batch after writing it sees only the new students.
+     */
+    public StudentWriter wrap(StudentWriter writer) {
+        return new FilteringWriter(writer);
+    }
+
+    /**
+     * Removes the duplicates from the batch and returns the ones to update.
+     */
+    private synchronized List<Student> removeDuplicates(List<Student> batch) {
+        List<Student> updates = null;
+        Iterator<Student> students = batch.iterator();
+        while (students.hasNext()) {
+            Student student = students.next();
+            Long studentId = student.getStudentId();
+            if (studentId == null) {
+                continue;
+            }
+            if (!writtenIds.add(studentId)) {
+                students.remove();
+                skipped.incrementAndGet();
+            } else if (existingIds.contains(studentId)) {
+                students.remove();
+                if (policy == DuplicatePolicy.UPDATE) {
+                    if (updates == null) {
+                        updates = new ArrayList<>();
+                    }
+                    updates.add(student);
+                    updated.incrementAndGet();
+                } else {
+                    skipped.incrementAndGet();
+                }
+            }
+        }
+        return updates;
+    }
+
+    private final class FilteringWriter implements StudentWriter {
+
+        private final StudentWriter inserts;
+        // Opened on the first row to update
+        private StudentWriter upserts;
+
+        FilteringWriter(StudentWriter inserts) {
+            this.inserts = inserts;
+        }
+
+        @Override
+        public long write(List<Student> batch) throws IOException {
+            List<Student> updates = removeDuplicates(batch);
+            long written = batch.isEmpty() ? 0 : inserts.write(batch);
+            if (updates != null) {
+                if (upserts == null) {
+                    upserts = new JdbcBatchStudentWriter(dataSource, jdbcBatchSize, DuplicatePolicy.UPDATE);
+                }
+                written += upserts.write(updates);
+            }
+            return written;
+        }
+
+        @Override
+        public boolean commitsEachBatch() {
+            // The upserts are JDBC batches, committed one by one
+            return inserts.commitsEachBatch();
+        }
+
+        @Override
+        public long finish() throws IOException {
+            long written = inserts.finish();
+            if (upserts != null) {
+                written += upserts.finish();
+            }
+            return written;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                inserts.close();
+            } finally {
+                if (upserts != null) {
+                    upserts.close();
+                }
+            }
+        }
+    }
+}
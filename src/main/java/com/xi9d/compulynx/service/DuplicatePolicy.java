@@ -0,0 +1,44 @@
+package com.xi9d.compulynx.service;
+
+/**
+ * What an upload does with a row whose studentId is already in the students table or earlier
+ * in the same file.
+ */
+public enum DuplicatePolicy {
+
+    /** The insert fails on the unique studentId index, stopping the upload. */
+    FAIL(""),
+
+    /** The row is dropped; the first row of a studentId is kept. */
+    SKIP(" ON CONFLICT (student_id) DO NOTHING"),
+
+    /**
+     * A row whose studentId is already in the table replaces the stored names, date of birth,
+     * class and score. Repeats within the file are dropped.
+     */
+    UPDATE(" ON CONFLICT (student_id) DO UPDATE SET first_name = EXCLUDED.first_name, "
+            + "last_name = EXCLUDED.last_name, dob = EXCLUDED.dob, class_name = EXCLUDED.class_name, "
+            + "score = EXCLUDED.score");
+
+    private final String conflictClause;
+
+    DuplicatePolicy(String conflictClause) {
+        this.conflictClause = conflictClause;
+    }
+
+    /** Clause appended to an INSERT into students, empty for FAIL. */
+    public String getConflictClause() {
+        return conflictClause;
+    }
+
+    public static DuplicatePolicy fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return FAIL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown duplicates policy: " + value);
+        }
+    }
+}
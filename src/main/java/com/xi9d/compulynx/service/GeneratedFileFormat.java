@@ -0,0 +1,44 @@
+package com.xi9d.compulynx.service;
+
+/**
+ * Output format of {@code DataService.generateStudentFile}.
+ */
+public enum GeneratedFileFormat {
+
+    /** Excel workbook with one sheet, the input of /process-excel. */
+    XLSX(".xlsx"),
+
+    /** Plain CSV with a header row, in the column order of the workbook. */
+    CSV(".csv"),
+
+    /** The same CSV, gzip compressed. */
+    CSV_GZIP(".csv.gz"),
+
+    /** Binary columnar file, see {@link StudentColumnsFile}. */
+    COLUMNAR(StudentColumnsFile.EXTENSION);
+
+    private final String extension;
+
+    GeneratedFileFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static GeneratedFileFormat fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return XLSX;
+        }
+        String name = value.trim().toUpperCase().replace('-', '_');
+        if (name.equals("GZIP") || name.equals("CSV.GZ")) {
+            return CSV_GZIP;
+        }
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown file format: " + value);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.xi9d.compulynx.service;
+
+import java.io.IOException;
+
+/**
+ * Where a CSV ingest records how far it got, so a failed or interrupted ingest of the same file
+ * can resume after the rows already committed instead of writing them again. Offsets count the
+ * data records of the file, header excluded, whether they were valid or not.
+ *
+ * A commit and its checkpoint cannot be made atomic, so every commit is announced first: an
+ * attempt that stopped in between leaves records that were being committed, which the next
+ * attempt checks against the table before writing them again.
+ */
+public interface IngestCheckpoint {
+
+    IngestCheckpoint NONE = new IngestCheckpoint() {
+        @Override
+        public long getCommittedRecords() {
+            return 0;
+        }
+
+        @Override
+        public long getCommittingRecords() {
+            return 0;
+        }
+
+        @Override
+        public void committing(long records) {
+        }
+
+        @Override
+        public void committed(long records) {
+        }
+    };
+
+    /** Records committed by earlier attempts; the ingest skips them. */
+    long getCommittedRecords();
+
+    /**
+     * Records up to which an earlier attempt had started a commit it did not checkpoint, which
+     * may or may not have gone through; {@link #getCommittedRecords()} when there is none.
+     */
+    long getCommittingRecords();
+
+    /** Called before committing every record up to the given one. */
+    void committing(long records) throws IOException;
+
+    /** Called once every record up to the given one is committed. */
+    void committed(long records) throws IOException;
+}
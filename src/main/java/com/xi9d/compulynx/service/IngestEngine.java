@@ -0,0 +1,30 @@
+package com.xi9d.compulynx.service;
+
+/**
+ * Persistence engine used by {@code DataService.uploadCsvToDatabase}.
+ */
+public enum IngestEngine {
+
+    /** Student entities saved through the JPA repository, one transaction per batch and one INSERT per row. */
+    JPA,
+
+    /** JDBC batch inserts with ids allocated per batch from the students id sequence. */
+    BATCH,
+
+    /** Rows streamed into the students table with PostgreSQL COPY FROM STDIN. */
+    COPY,
+
+    /** Reading, parsing and JDBC batch writing run as separate multi-threaded stages. */
+    PIPELINED;
+
+    public static IngestEngine fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return JPA;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown ingest engine: " + value);
+        }
+    }
+}
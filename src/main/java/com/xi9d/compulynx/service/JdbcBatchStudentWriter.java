@@ -0,0 +1,178 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Inserts students with plain JDBC batches on a connection held for the whole ingest.
+ *
+ * Primary keys are allocated up front for each batch from the sequence behind
+ * {@code students.id} (one round trip per batch instead of one per row), so the inserts do
+ * not need generated keys back and the driver can send them as multi-row statements.
+ * Each batch is inserted in studentId order and committed on its own.
+ *
+ * With a {@link DuplicatePolicy} other than FAIL the inserts carry its ON CONFLICT clause;
+ * a row that conflicts still uses up the id allocated for it.
+ *
+ * The driver rewrites the batches into multi-row INSERTs and then reports SUCCESS_NO_INFO for
+ * every row, so the update counts cannot tell a skipped row from an inserted one. Under FAIL
+ * and UPDATE every row of a committed batch is inserted or updated; under SKIP the rows that
+ * got in are counted by their allocated ids before the batch commits.
+ */
+@Slf4j
+public class JdbcBatchStudentWriter implements StudentWriter {
+
+    private static final String ALLOCATE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('students', 'id')) FROM generate_series(1, ?)";
+    private static final String INSERT_SQL = "INSERT INTO students (id, student_id, first_name, last_name, dob, class_name, score) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String COUNT_INSERTED_SQL = "SELECT count(*) FROM students WHERE id = ANY (?)";
+
+    private final Connection connection;
+    private final PreparedStatement allocateIds;
+    private final PreparedStatement insert;
+    // Only with DuplicatePolicy.SKIP, whose rows may silently not be inserted
+    private final PreparedStatement countInserted;
+    private final int jdbcBatchSize;
+    private long written;
+
+    public JdbcBatchStudentWriter(DataSource dataSource, int jdbcBatchSize) throws IOException {
+        this(dataSource, jdbcBatchSize, DuplicatePolicy.FAIL);
+    }
+
+    public JdbcBatchStudentWriter(DataSource dataSource, int jdbcBatchSize, DuplicatePolicy duplicates)
+            throws IOException {
+        this.jdbcBatchSize = Math.max(jdbcBatchSize, 1);
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IOException("Unable to open database connection: " + e.getMessage(), e);
+        }
+        try {
+            connection.setAutoCommit(false);
+            allocateIds = connection.prepareStatement(ALLOCATE_IDS_SQL);
+            insert = connection.prepareStatement(INSERT_SQL + duplicates.getConflictClause());
+            countInserted = duplicates == DuplicatePolicy.SKIP ? connection.prepareStatement(COUNT_INSERTED_SQL) : null;
+        } catch (SQLException e) {
+            closeConnection();
+            throw new IOException("Unable to prepare batch insert: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long write(List<Student> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Student> ordered = new ArrayList<>(batch);
+        ordered.sort(Comparator.comparing(Student::getStudentId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        try {
+            long[] ids = allocateIds(ordered.size());
+            for (int i = 0; i < ordered.size(); i++) {
+                Student student = ordered.get(i);
+                insert.setLong(1, ids[i]);
+                insert.setObject(2, student.getStudentId(), Types.BIGINT);
+                insert.setString(3, student.getFirstName());
+                insert.setString(4, student.getLastName());
+                insert.setObject(5, student.getDob(), Types.DATE);
+                insert.setString(6, student.getClassName());
+                insert.setObject(7, student.getScore(), Types.INTEGER);
+                insert.addBatch();
+
+                if ((i + 1) % jdbcBatchSize == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+            long inserted = countInserted != null ? countInserted(ids) : ordered.size();
+            connection.commit();
+            written += inserted;
+            log.debug("Committed JDBC batch of {} students, {} rows written. Total written: {}",
+                    ordered.size(), inserted, written);
+            return inserted;
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException("Batch insert into students failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean commitsEachBatch() {
+        return true;
+    }
+
+    @Override
+    public long finish() {
+        log.info("JDBC batch insert finished, {} students written to database", written);
+        return written;
+    }
+
+    @Override
+    public void close() {
+        try {
+            insert.close();
+            allocateIds.close();
+            if (countInserted != null) {
+                countInserted.close();
+            }
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            log.error("Error releasing batch insert resources: {}", e.getMessage(), e);
+        } finally {
+            closeConnection();
+        }
+    }
+
+    private long[] allocateIds(int count) throws SQLException {
+        long[] ids = new long[count];
+        allocateIds.setInt(1, count);
+        try (ResultSet resultSet = allocateIds.executeQuery()) {
+            int i = 0;
+            while (resultSet.next()) {
+                ids[i++] = resultSet.getLong(1);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Rows of the current batch that are in the table, by the ids allocated for them; a row
+     * skipped by ON CONFLICT DO NOTHING never gets its id.
+     */
+    private long countInserted(long[] ids) throws SQLException {
+        countInserted.setArray(1, connection.createArrayOf("bigint", Arrays.stream(ids).boxed().toArray()));
+        try (ResultSet resultSet = countInserted.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.error("Error rolling back batch insert: {}", e.getMessage(), e);
+        }
+    }
+
+    private void closeConnection() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.error("Error closing batch insert connection: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.xi9d.compulynx.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A long-running operation submitted through {@link JobService}, with its progress and outcome.
+ *
+ * Status changes are atomic: a job cancelled while queued never starts, and the finish
+ * listener runs exactly once, whether the job ran or was cancelled before it could.
+ */
+@Getter
+@Slf4j
+public class Job implements JobProgress {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String type;
+    private final Instant submittedAt = Instant.now();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile long totalRows = -1;
+    private volatile long totalBytes = -1;
+    private volatile String resultFileName;
+    private volatile String error;
+
+    private final AtomicLong rowsDone = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong bytesRead = new AtomicLong();
+    private volatile boolean cancelRequested;
+    @Getter(AccessLevel.NONE)
+    private volatile Future<?> future;
+    @Getter(AccessLevel.NONE)
+    private final JobService.FinishListener finishListener;
+
+    Job(String type, JobService.FinishListener finishListener) {
+        this.type = type;
+        this.finishListener = finishListener;
+    }
+
+    @Override
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    @Override
+    public void advance(long rows) {
+        rowsDone.addAndGet(rows);
+    }
+
+    @Override
+    public InputStream trackInput(InputStream inputStream, long totalBytes) {
+        this.totalBytes = totalBytes;
+        return new FilterInputStream(inputStream) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesRead.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    bytesRead.addAndGet(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    @Override
+    public void checkCancelled() {
+        if (cancelRequested || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Job " + id + " was cancelled");
+        }
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Moves a queued job to RUNNING; false if it was cancelled first and must not run.
+     */
+    synchronized boolean start() {
+        if (status != Status.QUEUED || cancelRequested) {
+            return false;
+        }
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+        return true;
+    }
+
+    void completed(String resultFileName) {
+        this.resultFileName = resultFileName;
+        finish(Status.COMPLETED);
+    }
+
+    void failed(Throwable e) {
+        this.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        finish(Status.FAILED);
+    }
+
+    void cancelled() {
+        finish(Status.CANCELLED);
+    }
+
+    boolean requestCancel() {
+        boolean queued;
+        synchronized (this) {
+            if (isFinished()) {
+                return false;
+            }
+            // Only the first request finishes a queued job; start() refuses it from here on
+            queued = status == Status.QUEUED && !cancelRequested;
+            cancelRequested = true;
+        }
+        if (future != null) {
+            future.cancel(true);
+        }
+        if (queued) {
+            cancelled();
+        }
+        return true;
+    }
+
+    private void finish(Status finalStatus) {
+        // Released before the status is published, so a client that sees the job finished
+        // also finds what it held (a spooled upload, an upload session) released
+        if (finishListener != null) {
+            try {
+                finishListener.finished(finalStatus);
+            } catch (Exception e) {
+                log.error("Finish listener of {} job {} failed: {}", type, id, e.getMessage(), e);
+            }
+        }
+        synchronized (this) {
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+    }
+
+    /**
+     * Snapshot of the job for the REST API, including throughput and the estimated time left.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("jobId", id);
+        map.put("type", type);
+        map.put("status", status);
+        map.put("submittedAt", submittedAt);
+        map.put("startedAt", startedAt);
+        map.put("finishedAt", finishedAt);
+
+        long rows = rowsDone.get();
+        map.put("rowsDone", rows);
+        map.put("totalRows", totalRows >= 0 ? totalRows : null);
+
+        Double rowsPerSecond = null;
+        Long etaSeconds = null;
+        if (startedAt != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            double seconds = Math.max(Duration.between(startedAt, end).toMillis() / 1000.0, 0.001);
+            rowsPerSecond = Math.round(rows / seconds * 10) / 10.0;
+
+            // Prefer the share of input consumed; fall back to the rows done out of a known total
+            double fraction = -1;
+            if (totalBytes > 0) {
+                fraction = (double) bytesRead.get() / totalBytes;
+            } else if (totalRows > 0) {
+                fraction = (double) rows / totalRows;
+            }
+            if (!isFinished() && fraction > 0) {
+                etaSeconds = Math.round(seconds * (1 - fraction) / fraction);
+            }
+        }
+        map.put("rowsPerSecond", rowsPerSecond);
+        map.put("etaSeconds", isFinished() ? Long.valueOf(0) : etaSeconds);
+        map.put("resultFileName", resultFileName);
+        map.put("error", error);
+        return map;
+    }
+}
@@ -0,0 +1,42 @@
+package com.xi9d.compulynx.service;
+
+import java.io.InputStream;
+
+/**
+ * Progress reporting and cancellation hook threaded through the long-running operations of
+ * {@link DataService}. Synchronous callers pass {@link #NONE}.
+ */
+public interface JobProgress {
+
+    JobProgress NONE = new JobProgress() {
+        @Override
+        public void setTotalRows(long totalRows) {
+        }
+
+        @Override
+        public void advance(long rows) {
+        }
+
+        @Override
+        public InputStream trackInput(InputStream inputStream, long totalBytes) {
+            return inputStream;
+        }
+
+        @Override
+        public void checkCancelled() {
+        }
+    };
+
+    void setTotalRows(long totalRows);
+
+    /** Adds rows to the rows done so far; safe to call from several threads. */
+    void advance(long rows);
+
+    /** Wraps an input so the bytes read from it are used to estimate the remaining time. */
+    InputStream trackInput(InputStream inputStream, long totalBytes);
+
+    /**
+     * @throws java.util.concurrent.CancellationException if the job has been cancelled
+     */
+    void checkCancelled();
+}
@@ -0,0 +1,166 @@
+package com.xi9d.compulynx.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs generate/process/upload operations in the background so the HTTP request returns a job
+ * id straight away. At most app.jobs.max-concurrent jobs run at once and app.jobs.queue-capacity
+ * more may wait; further submissions are rejected. Finished jobs are kept for
+ * app.jobs.retention-minutes so their outcome can still be queried.
+ */
+@Service
+@Slf4j
+public class JobService {
+
+    @FunctionalInterface
+    public interface JobTask {
+        /**
+         * @return the name of the file produced by the job, or null
+         */
+        String run(JobProgress progress) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface FinishListener {
+        /**
+         * Called once the job has completed, failed or been cancelled, including when it was
+         * cancelled before it started; not called when {@link #submit} rejects the job.
+         */
+        void finished(Job.Status status) throws Exception;
+    }
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+
+    public JobService(@Value("${app.jobs.max-concurrent:2}") int maxConcurrent,
+                      @Value("${app.jobs.queue-capacity:10}") int queueCapacity,
+                      @Value("${app.jobs.retention-minutes:60}") long retentionMinutes,
+                      MeterRegistry meterRegistry) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "job-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.retention = Duration.ofMinutes(retentionMinutes);
+
+        Gauge.builder("students.jobs.active", this, JobService::getActiveJobCount)
+                .description("Background jobs running")
+                .register(meterRegistry);
+        Gauge.builder("students.jobs.queued", this, JobService::getQueuedJobCount)
+                .description("Background jobs waiting for a worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @throws RejectedExecutionException when the maximum number of running and queued jobs is reached
+     */
+    public Job submit(String type, JobTask task) {
+        return submit(type, task, null);
+    }
+
+    /**
+     * @param onFinish releases what the task needs until the job finishes, such as its input
+     *                 file; may be null
+     * @throws RejectedExecutionException when the maximum number of running and queued jobs is reached
+     */
+    public Job submit(String type, JobTask task, FinishListener onFinish) {
+        evictExpiredJobs();
+
+        Job job = new Job(type, onFinish);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job, task)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new RejectedExecutionException("Too many jobs running or queued, try again later", e);
+        }
+        log.info("Submitted {} job {}", type, job.getId());
+        return job;
+    }
+
+    public Optional<Job> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public List<Job> getJobs() {
+        evictExpiredJobs();
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(Job::getSubmittedAt).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public boolean cancel(String id) {
+        Job job = jobs.get(id);
+        if (job == null || !job.requestCancel()) {
+            return false;
+        }
+        log.info("Cancellation requested for {} job {}", job.getType(), id);
+        return true;
+    }
+
+    public int getActiveJobCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueuedJobCount() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Job job, JobTask task) {
+        if (!job.start()) {
+            return; // cancelled while queued
+        }
+        try {
+            String resultFileName = task.run(job);
+            job.completed(resultFileName);
+            log.info("{} job {} completed", job.getType(), job.getId());
+        } catch (CancellationException e) {
+            job.cancelled();
+            log.info("{} job {} cancelled", job.getType(), job.getId());
+        } catch (Exception e) {
+            if (job.isCancelRequested()) {
+                job.cancelled();
+                log.info("{} job {} cancelled: {}", job.getType(), job.getId(), e.getMessage());
+            } else {
+                job.failed(e);
+                log.error("{} job {} failed", job.getType(), job.getId(), e);
+            }
+        }
+    }
+
+    private void evictExpiredJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        Collection<Job> all = jobs.values();
+        all.removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+}
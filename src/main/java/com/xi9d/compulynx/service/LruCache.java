@@ -0,0 +1,85 @@
+package com.xi9d.compulynx.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Size-bounded least-recently-used cache. Every value has a weight (for example its size in
+ * bytes); the least recently used entries are evicted once the total weight or the number of
+ * entries exceeds its limit. A value heavier than the whole cache is not stored.
+ *
+ * Instances are thread safe.
+ */
+public class LruCache<V> {
+
+    private final long maxWeight;
+    private final int maxEntries;
+    private final ToLongFunction<V> weigher;
+
+    private final LinkedHashMap<String, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private long hits;
+    private long misses;
+    private long puts;
+    private long evictions;
+
+    public LruCache(long maxWeight, int maxEntries, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.maxEntries = maxEntries;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(String key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    public synchronized void put(String key, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maxWeight || maxEntries < 1) {
+            return;
+        }
+
+        V previous = entries.put(key, value);
+        if (previous != null) {
+            weight -= weigher.applyAsLong(previous);
+        }
+        weight += valueWeight;
+        puts++;
+
+        Iterator<Map.Entry<String, V>> eldest = entries.entrySet().iterator();
+        while ((weight > maxWeight || entries.size() > maxEntries) && eldest.hasNext()) {
+            Map.Entry<String, V> entry = eldest.next();
+            weight -= weigher.applyAsLong(entry.getValue());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("weight", weight);
+        stats.put("maxWeight", maxWeight);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses > 0 ? Math.round(hits * 1000.0 / (hits + misses)) / 1000.0 : 0.0);
+        stats.put("puts", puts);
+        stats.put("evictions", evictions);
+        return stats;
+    }
+}
@@ -0,0 +1,357 @@
+package com.xi9d.compulynx.service;
+
+import com.opencsv.CSVParser;
+import com.xi9d.compulynx.entity.Student;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * CSV upload split into three stages connected by bounded queues:
+ * <ol>
+ *     <li>a reader that cuts the input into chunks of raw lines,</li>
+ *     <li>parser workers that decode, validate and transform the lines into students,</li>
+ *     <li>writer workers that insert the students with JDBC batches, each on its own connection.</li>
+ * </ol>
+ * A full queue blocks the stage feeding it, so a slow database throttles the reader instead of
+ * letting parsed rows pile up in memory. The first failure in any stage stops the whole pipeline,
+ * and {@link #ingest} returns only once every worker has stopped. Like the other engines,
+ * batches committed before a failure stay in the database.
+ */
+@Slf4j
+public class PipelinedCsvIngestor {
+
+    // End-of-input markers, compared by identity
+    private static final List<String> END_OF_LINES = new ArrayList<>();
+    private static final List<Student> END_OF_STUDENTS = new ArrayList<>();
+    private static final long OFFER_TIMEOUT_MS = 100;
+    private static final String ENGINE = IngestEngine.PIPELINED.name();
+
+    /**
+     * Opens the writer of one writer thread.
+     */
+    @FunctionalInterface
+    public interface WriterFactory {
+        StudentWriter create() throws IOException;
+    }
+
+    private final WriterFactory writers;
+    private final int parserThreads;
+    private final int writerThreads;
+    private final int batchSize;
+    private final DataMetrics metrics;
+
+    private final BlockingQueue<List<String>> lineQueue;
+    private final BlockingQueue<List<Student>> studentQueue;
+
+    private final AtomicLong linesRead = new AtomicLong();
+    private final AtomicLong recordsParsed = new AtomicLong();
+    private final AtomicLong parseErrors = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private volatile Throwable failure;
+
+    /**
+     * @param writers opens the writer of every writer thread, each on its own connection
+     * @param metrics records batch flush times, parse errors and queue depths; may be null
+     */
+    public PipelinedCsvIngestor(WriterFactory writers, int parserThreads, int writerThreads,
+                                int queueCapacity, int batchSize, DataMetrics metrics) {
+        this.writers = writers;
+        this.metrics = metrics;
+        this.parserThreads = Math.max(parserThreads, 1);
+        this.writerThreads = Math.max(writerThreads, 1);
+        this.batchSize = Math.max(batchSize, 1);
+        this.lineQueue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+        this.studentQueue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+    }
+
+    /**
+     * Runs the pipeline over the given CSV stream (header row first) and returns the number of
+     * students written to the database.
+     */
+    public long ingest(InputStream inputStream, JobProgress progress) throws IOException {
+        return ingest(inputStream, progress, students -> { });
+    }
+
+    /**
+     * Same as {@link #ingest(InputStream, JobProgress)}, handing every batch to batchListener
+     * once a writer has committed it. The listener is called from the writer threads.
+     */
+    public long ingest(InputStream inputStream, JobProgress progress, Consumer<List<Student>> batchListener)
+            throws IOException {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(parserThreads + writerThreads);
+        List<Future<?>> workers = new ArrayList<>();
+        AtomicInteger activeParsers = new AtomicInteger(parserThreads);
+        if (metrics != null) {
+            metrics.pipelineStarted(this);
+        }
+
+        try {
+            for (int i = 0; i < writerThreads; i++) {
+                workers.add(executor.submit(() -> {
+                    runWriter(progress, batchListener);
+                    return null;
+                }));
+            }
+            for (int i = 0; i < parserThreads; i++) {
+                workers.add(executor.submit(() -> {
+                    runParser(activeParsers);
+                    return null;
+                }));
+            }
+
+            runReader(inputStream, progress);
+
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            fail(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        } finally {
+            executor.shutdownNow();
+            awaitWorkers(executor);
+            if (metrics != null) {
+                metrics.pipelineFinished(this);
+            }
+        }
+
+        double seconds = Math.max((System.nanoTime() - start) / 1_000_000_000.0, 0.001);
+        log.info("Pipelined upload: read {} lines ({}/s), parsed {} records ({}/s, {} errors), wrote {} rows ({}/s) in {}s",
+                linesRead.get(), rate(linesRead, seconds), recordsParsed.get(), rate(recordsParsed, seconds),
+                parseErrors.get(), rowsWritten.get(), rate(rowsWritten, seconds), String.format("%.1f", seconds));
+
+        if (failure != null) {
+            throw new IOException("Pipelined upload failed after " + rowsWritten.get() + " rows: " + failure.getMessage(), failure);
+        }
+        return rowsWritten.get();
+    }
+
+    public int getLineQueueDepth() {
+        return lineQueue.size();
+    }
+
+    public int getStudentQueueDepth() {
+        return studentQueue.size();
+    }
+
+    public long getLinesRead() {
+        return linesRead.get();
+    }
+
+    public long getRecordsParsed() {
+        return recordsParsed.get();
+    }
+
+    public long getParseErrors() {
+        return parseErrors.get();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    private void runReader(InputStream inputStream, JobProgress progress) throws IOException, InterruptedException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream), 1 << 16)) {
+            String header = reader.readLine();
+            log.info("Header row: {}", header);
+
+            List<String> chunk = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // A quoted field may contain line breaks: keep reading until the quotes balance
+                while (hasOpenQuote(line)) {
+                    String next = reader.readLine();
+                    if (next == null) {
+                        break;
+                    }
+                    line = line + "\n" + next;
+                }
+                chunk.add(line);
+                linesRead.incrementAndGet();
+
+                if (chunk.size() >= batchSize) {
+                    progress.checkCancelled();
+                    put(lineQueue, chunk);
+                    chunk = new ArrayList<>(batchSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                put(lineQueue, chunk);
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            fail(e);
+            throw e;
+        }
+
+        // One end marker per parser; after a failure the workers stop on their own
+        for (int i = 0; i < parserThreads; i++) {
+            put(lineQueue, END_OF_LINES);
+        }
+    }
+
+    private void runParser(AtomicInteger activeParsers) throws InterruptedException {
+        CSVParser parser = new CSVParser();
+        try {
+            while (true) {
+                List<String> lines = take(lineQueue);
+                if (lines == END_OF_LINES) {
+                    break;
+                }
+
+                List<Student> students = new ArrayList<>(lines.size());
+                for (String line : lines) {
+                    String[] record = null;
+                    try {
+                        record = parser.parseLine(line);
+                        if (record.length < 6) {
+                            parseErrors.incrementAndGet();
+                            if (metrics != null) {
+                                metrics.parseError(ENGINE, "columns");
+                            }
+                            log.warn("Record has insufficient columns ({}), expected 6 - Record: {}", record.length, line);
+                            continue;
+                        }
+                        students.add(StudentRecords.fromUploadRecord(record));
+                        recordsParsed.incrementAndGet();
+                    } catch (Exception e) {
+                        parseErrors.incrementAndGet();
+                        if (metrics != null) {
+                            metrics.parseError(ENGINE, e);
+                        }
+                        log.warn("Error parsing record: {} - Record: {}", e.getMessage(),
+                                record != null ? Arrays.toString(record) : line);
+                    }
+                }
+                if (!students.isEmpty()) {
+                    put(studentQueue, students);
+                }
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            fail(e);
+            throw e;
+        } finally {
+            // The last parser to finish tells every writer there is nothing more to come
+            if (activeParsers.decrementAndGet() == 0 && failure == null) {
+                for (int i = 0; i < writerThreads; i++) {
+                    put(studentQueue, END_OF_STUDENTS);
+                }
+            }
+        }
+    }
+
+    private void runWriter(JobProgress progress, Consumer<List<Student>> batchListener)
+            throws IOException, InterruptedException {
+        try (StudentWriter writer = createWriter()) {
+            while (true) {
+                List<Student> students = take(studentQueue);
+                if (students == END_OF_STUDENTS) {
+                    break;
+                }
+                checkFailure();
+                // A duplicate filter removes rows from the batch as it writes it
+                int records = students.size();
+                long written = writer.write(students);
+                batchListener.accept(students);
+                progress.advance(records);
+                long total = rowsWritten.addAndGet(written);
+                if (total / 100_000 != (total - written) / 100_000) {
+                    log.info("Pipelined upload progress: {} rows written, queues: lines={}, students={}",
+                            total, lineQueue.size(), studentQueue.size());
+                }
+            }
+            writer.finish();
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until every stage has stopped. An interrupt does not abort a JDBC batch that is
+     * already running, and its rows must not land after ingest has returned.
+     */
+    private static void awaitWorkers(ExecutorService executor) {
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                if (executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    break;
+                }
+                log.warn("Waiting for the pipelined upload workers to stop");
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private StudentWriter createWriter() throws IOException {
+        StudentWriter writer = writers.create();
+        return metrics != null ? metrics.timeBatches(writer, ENGINE) : writer;
+    }
+
+    private <T> void put(BlockingQueue<T> queue, T item) throws InterruptedException {
+        while (!queue.offer(item, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            checkFailure();
+        }
+    }
+
+    private <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+        T item;
+        while ((item = queue.poll(OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) == null) {
+            checkFailure();
+        }
+        return item;
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new CancellationException("Pipeline stopped: " + failure.getMessage());
+        }
+    }
+
+    private void fail(Throwable e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private static boolean hasOpenQuote(String line) {
+        int quotes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes % 2 != 0;
+    }
+
+    private static long rate(AtomicLong counter, double seconds) {
+        return Math.round(counter.get() / seconds);
+    }
+}
@@ -0,0 +1,280 @@
+package com.xi9d.compulynx.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of repeated read requests: student list pages on the heap, and rendered
+ * exports in two tiers, small ones on the heap and larger ones in files on disk (when
+ * app.cache.exports.disk-dir is set).
+ *
+ * Every key carries the current data version. Uploads and processed files call
+ * {@link #invalidate()}, which moves to a new version and drops the cached results, so a
+ * result rendered from older data is never served again.
+ */
+@Component
+@Slf4j
+public class ResultCache {
+
+    @FunctionalInterface
+    public interface Renderer {
+        void render(OutputStream outputStream) throws IOException;
+    }
+
+    private final boolean enabled;
+    private final AtomicLong version = new AtomicLong();
+    private final LruCache<Map<String, Object>> pages;
+    private final LruCache<byte[]> exports;
+    private final int maxHeapExportBytes;
+    private final DiskBlobCache diskExports;
+
+    public ResultCache(@Value("${app.cache.enabled:true}") boolean enabled,
+                       @Value("${app.cache.pages.max-entries:1000}") int maxPageEntries,
+                       @Value("${app.cache.exports.heap-max-bytes:67108864}") long maxHeapBytes,
+                       @Value("${app.cache.exports.heap-max-entry-bytes:4194304}") int maxHeapExportBytes,
+                       @Value("${app.cache.exports.disk-dir:}") String diskDirectory,
+                       @Value("${app.cache.exports.disk-max-bytes:1073741824}") long maxDiskBytes) throws IOException {
+        this.enabled = enabled;
+        this.pages = new LruCache<>(maxPageEntries, maxPageEntries, page -> 1);
+        this.exports = new LruCache<>(maxHeapBytes, Integer.MAX_VALUE, blob -> blob.length);
+        this.maxHeapExportBytes = maxHeapExportBytes;
+        this.diskExports = enabled && !diskDirectory.isBlank()
+                ? new DiskBlobCache(Paths.get(diskDirectory), maxDiskBytes)
+                : null;
+    }
+
+    /**
+     * Builds an unambiguous cache key from query parameters; nulls and separators inside
+     * values cannot make two different queries collide.
+     */
+    public static String key(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            if (part == null) {
+                key.append("~|");
+            } else {
+                String value = part.toString();
+                key.append(value.length()).append(':').append(value).append('|');
+            }
+        }
+        return key.toString();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Starts a new data version and drops every cached result.
+     */
+    public void invalidate() {
+        long newVersion = version.incrementAndGet();
+        pages.invalidateAll();
+        exports.invalidateAll();
+        if (diskExports != null) {
+            diskExports.invalidateAll();
+        }
+        log.debug("Result cache invalidated, data version {}", newVersion);
+    }
+
+    /**
+     * Cached response of a student list query, loaded on a miss. The returned map is shared
+     * between requests and read-only.
+     */
+    public Map<String, Object> getPage(String query, Supplier<Map<String, Object>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String key = version.get() + "|" + query;
+        Map<String, Object> page = pages.get(key);
+        if (page == null) {
+            page = Collections.unmodifiableMap(loader.get());
+            pages.put(key, page);
+        }
+        return page;
+    }
+
+    /**
+     * Writes the export identified by query to the output stream, from the cache when possible.
+     * On a miss the renderer writes straight to the output stream while a copy is captured
+     * for the cache; the copy is kept only if rendering completes.
+     */
+    public void writeExport(String query, OutputStream outputStream, Renderer renderer) throws IOException {
+        if (!enabled) {
+            renderer.render(outputStream);
+            return;
+        }
+
+        String key = version.get() + "|" + query;
+        byte[] blob = exports.get(key);
+        if (blob != null) {
+            outputStream.write(blob);
+            return;
+        }
+        if (diskExports != null) {
+            try (InputStream cached = diskExports.open(key)) {
+                if (cached != null) {
+                    cached.transferTo(outputStream);
+                    return;
+                }
+            }
+        }
+
+        Capture capture = new Capture();
+        boolean rendered = false;
+        try {
+            renderer.render(new TeeOutputStream(outputStream, capture));
+            rendered = true;
+        } finally {
+            capture.finish(key, rendered);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("dataVersion", version.get());
+        stats.put("pages", pages.getStats());
+        stats.put("exportsHeap", exports.getStats());
+        stats.put("exportsDisk", diskExports != null ? diskExports.getStats() : null);
+        return stats;
+    }
+
+    /**
+     * Copy of a rendered export: in memory up to maxHeapExportBytes, then spilled to a
+     * temporary file in the disk tier, or dropped when there is none. Never fails the export
+     * it is copying.
+     */
+    private final class Capture extends OutputStream {
+
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        private Path file;
+        private OutputStream fileOut;
+        private boolean dropped;
+        // Renderers writing byte by byte go through this instead of a new array per byte
+        private final byte[] single = new byte[1];
+
+        @Override
+        public void write(int b) {
+            single[0] = (byte) b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (dropped) {
+                return;
+            }
+            try {
+                if (memory != null && memory.size() + len > maxHeapExportBytes) {
+                    spill();
+                }
+                if (memory != null) {
+                    memory.write(b, off, len);
+                } else if (fileOut != null) {
+                    fileOut.write(b, off, len);
+                }
+            } catch (IOException e) {
+                log.warn("Could not cache export: {}", e.getMessage());
+                drop();
+            }
+        }
+
+        private void spill() throws IOException {
+            if (diskExports == null) {
+                drop();
+                return;
+            }
+            file = Files.createTempFile(diskExports.getDirectory(), "export_", ".tmp");
+            fileOut = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+            memory.writeTo(fileOut);
+            memory = null;
+        }
+
+        private void drop() {
+            dropped = true;
+            memory = null;
+            closeFile();
+        }
+
+        void finish(String key, boolean rendered) throws IOException {
+            if (!rendered) {
+                drop();
+            }
+            closeFile();
+            if (dropped) {
+                return;
+            }
+            if (memory != null) {
+                exports.put(key, memory.toByteArray());
+            } else if (file != null) {
+                diskExports.put(key, file);
+                file = null;
+            }
+        }
+
+        private void closeFile() {
+            try {
+                if (fileOut != null) {
+                    fileOut.close();
+                    fileOut = null;
+                }
+                if (dropped && file != null) {
+                    Files.deleteIfExists(file);
+                    file = null;
+                }
+            } catch (IOException e) {
+                log.warn("Could not clean up cached export {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private static final class TeeOutputStream extends OutputStream {
+
+        private final OutputStream target;
+        private final OutputStream copy;
+
+        TeeOutputStream(OutputStream target, OutputStream copy) {
+            this.target = target;
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            copy.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The response stream belongs to the caller
+            target.flush();
+        }
+    }
+}
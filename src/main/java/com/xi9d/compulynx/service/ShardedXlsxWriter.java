@@ -0,0 +1,278 @@
+package com.xi9d.compulynx.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a single-sheet XLSX file by generating the sheet XML in parallel shards.
+ *
+ * Each shard renders a contiguous block of rows into its own temporary sheet fragment on a
+ * separate thread. The fragments are then stitched, in order, into the worksheet part of a
+ * template workbook created with POI, so the result is a regular workbook with one sheet.
+ */
+@Slf4j
+public class ShardedXlsxWriter {
+
+    /**
+     * Supplies the cell values of the data rows of one shard, in order, from the shard's
+     * thread. The values array is reused from row to row.
+     */
+    @FunctionalInterface
+    public interface RowSource {
+        void row(long rowNumber, String[] values);
+    }
+
+    private final String sheetName;
+    private final String[] headers;
+    private final int[] columnWidths;
+    private final boolean[] numericColumns;
+
+    /**
+     * @param columnWidths   column widths in characters
+     * @param numericColumns columns written as numeric cells, all others are inline strings
+     */
+    public ShardedXlsxWriter(String sheetName, String[] headers, int[] columnWidths, boolean[] numericColumns) {
+        this.sheetName = sheetName;
+        this.headers = headers;
+        this.columnWidths = columnWidths;
+        this.numericColumns = numericColumns;
+    }
+
+    /**
+     * @param rows creates the row source of a shard, given the number of its first row
+     */
+    public void write(Path target, long rowCount, int parallelism, JobProgress progress, LongFunction<RowSource> rows)
+            throws IOException {
+        Path workDir = Files.createTempDirectory("xlsx_shards_");
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        List<Path> shardFiles = new ArrayList<>();
+        try {
+            Path template = workDir.resolve("template.xlsx");
+            String[] sheetPart = new String[1];
+            int headerStyle = createTemplate(template, sheetPart);
+
+            // Split the rows into contiguous ranges so the ids stay in order once merged
+            List<Future<?>> shards = new ArrayList<>();
+            long shardSize = (rowCount + parallelism - 1) / parallelism;
+            for (int shard = 0; shard < parallelism; shard++) {
+                long firstRow = 1 + shard * shardSize;
+                long lastRow = Math.min(rowCount, firstRow + shardSize - 1);
+                if (firstRow > lastRow) {
+                    break;
+                }
+                Path shardFile = workDir.resolve("shard_" + shard + ".xml");
+                shardFiles.add(shardFile);
+                shards.add(executor.submit(() -> {
+                    writeShard(shardFile, firstRow, lastRow, progress, rows.apply(firstRow));
+                    return null;
+                }));
+            }
+
+            for (Future<?> shard : shards) {
+                try {
+                    shard.get();
+                } catch (ExecutionException e) {
+                    shards.forEach(f -> f.cancel(true));
+                    if (e.getCause() instanceof CancellationException) {
+                        throw (CancellationException) e.getCause();
+                    }
+                    throw new IOException("Failed to generate sheet shard: " + e.getCause().getMessage(), e.getCause());
+                } catch (InterruptedException e) {
+                    shards.forEach(f -> f.cancel(true));
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while generating sheet shards", e);
+                }
+            }
+            log.info("Generated {} rows in {} shards, merging into {}", rowCount, shardFiles.size(), target);
+
+            merge(template, sheetPart[0], headerStyle, shardFiles, target);
+        } catch (IOException | RuntimeException e) {
+            // A half merged workbook would pass for a generated file
+            Files.deleteIfExists(target);
+            throw e;
+        } finally {
+            // A shard still running could create or write its file after the cleanup
+            executor.shutdownNow();
+            awaitShards(executor);
+            for (Path shardFile : shardFiles) {
+                Files.deleteIfExists(shardFile);
+            }
+            Files.deleteIfExists(workDir.resolve("template.xlsx"));
+            Files.deleteIfExists(workDir);
+        }
+    }
+
+    private static void awaitShards(ExecutorService executor) {
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                if (executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    break;
+                }
+                log.warn("Waiting for the sheet shards to stop");
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates an empty workbook holding the sheet and the bold header style, and returns the
+     * index of that style. The zip entry name of the worksheet part is stored in sheetPart.
+     */
+    private int createTemplate(Path template, String[] sheetPart) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             OutputStream out = Files.newOutputStream(template)) {
+            XSSFSheet sheet = workbook.createSheet(sheetName);
+
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+
+            sheetPart[0] = sheet.getPackagePart().getPartName().getName().substring(1);
+            workbook.write(out);
+            return headerStyle.getIndex();
+        }
+    }
+
+    private void writeShard(Path shardFile, long firstRow, long lastRow, JobProgress progress, RowSource rows)
+            throws IOException {
+        String[] values = new String[headers.length];
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(shardFile), StandardCharsets.UTF_8), 1 << 16)) {
+            for (long rowNumber = firstRow; rowNumber <= lastRow; rowNumber++) {
+                if ((rowNumber - firstRow) % 1000 == 999) {
+                    progress.advance(1000);
+                    progress.checkCancelled();
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new IOException("Shard generation cancelled");
+                    }
+                }
+                // Sheet row 1 holds the header, so data row n lives on sheet row n + 1
+                rows.row(rowNumber, values);
+                writeRow(out, rowNumber + 1, values, -1);
+            }
+            progress.advance((lastRow - firstRow + 1) % 1000);
+        }
+    }
+
+    private void writeRow(Writer out, long sheetRow, String[] values, int style) throws IOException {
+        out.write("<row r=\"");
+        out.write(Long.toString(sheetRow));
+        out.write("\">");
+        for (int column = 0; column < values.length; column++) {
+            out.write("<c r=\"");
+            out.write(CellReference.convertNumToColString(column));
+            out.write(Long.toString(sheetRow));
+            if (style >= 0) {
+                out.write("\" s=\"");
+                out.write(Integer.toString(style));
+            }
+            if (numericColumns[column] && style < 0) {
+                out.write("\"><v>");
+                out.write(values[column]);
+                out.write("</v></c>");
+            } else {
+                out.write("\" t=\"inlineStr\"><is><t>");
+                writeEscaped(out, values[column]);
+                out.write("</t></is></c>");
+            }
+        }
+        out.write("</row>");
+    }
+
+    private void merge(Path template, String sheetPart, int headerStyle, List<Path> shardFiles, Path target)
+            throws IOException {
+        try (ZipFile templateZip = new ZipFile(template.toFile());
+             ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(target))) {
+
+            Enumeration<? extends ZipEntry> entries = templateZip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.getName().equals(sheetPart)) {
+                    continue;
+                }
+                zip.putNextEntry(new ZipEntry(entry.getName()));
+                try (InputStream in = templateZip.getInputStream(entry)) {
+                    in.transferTo(zip);
+                }
+                zip.closeEntry();
+            }
+
+            // The worksheet part dwarfs everything else; the fastest deflate level keeps the
+            // single-threaded compression from undoing the parallel generation
+            zip.setLevel(Deflater.BEST_SPEED);
+            zip.putNextEntry(new ZipEntry(sheetPart));
+            Writer sheet = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 1 << 16);
+            sheet.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+            sheet.write("<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+            sheet.write("<cols>");
+            for (int column = 0; column < columnWidths.length; column++) {
+                sheet.write("<col min=\"" + (column + 1) + "\" max=\"" + (column + 1)
+                        + "\" width=\"" + columnWidths[column] + "\" customWidth=\"1\"/>");
+            }
+            sheet.write("</cols><sheetData>");
+            writeRow(sheet, 1, headers, headerStyle);
+            sheet.flush();
+
+            for (Path shardFile : shardFiles) {
+                Files.copy(shardFile, zip);
+            }
+
+            sheet.write("</sheetData></worksheet>");
+            sheet.flush();
+            zip.closeEntry();
+        }
+    }
+
+    private static void writeEscaped(Writer out, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    out.write("&lt;");
+                    break;
+                case '>':
+                    out.write("&gt;");
+                    break;
+                case '&':
+                    out.write("&amp;");
+                    break;
+                default:
+                    out.write(c);
+            }
+        }
+    }
+}
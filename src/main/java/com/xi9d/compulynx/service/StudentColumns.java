@@ -0,0 +1,372 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column-oriented, read-only store of students. Every attribute lives in its own primitive
+ * array: ids and scores as numbers, dates of birth as epoch days, class names as codes into a
+ * small dictionary and both names packed back to back as UTF-8 bytes. A million rows take a
+ * few dozen megabytes instead of the hundreds needed by the same number of {@link Student}s.
+ *
+ * Rows are kept in studentId order. Values are decoded only when a row is read.
+ */
+public final class StudentColumns {
+
+    public static final StudentColumns EMPTY = new Builder().build();
+
+    private final int size;
+    private final long[] studentIds;
+    private final int[] scores;
+    private final int[] dobEpochDays;
+    private final short[] classCodes;
+    private final String[] classDictionary;
+    private final byte[] nameBytes;
+    // Row i: first name is nameBytes[nameOffsets[2i], nameOffsets[2i+1]), last name ends at nameOffsets[2i+2]
+    private final int[] nameOffsets;
+
+    private StudentColumns(int size, long[] studentIds, int[] scores, int[] dobEpochDays, short[] classCodes,
+                           String[] classDictionary, byte[] nameBytes, int[] nameOffsets) {
+        this.size = size;
+        this.studentIds = studentIds;
+        this.scores = scores;
+        this.dobEpochDays = dobEpochDays;
+        this.classCodes = classCodes;
+        this.classDictionary = classDictionary;
+        this.nameBytes = nameBytes;
+        this.nameOffsets = nameOffsets;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getStudentId(int row) {
+        return studentIds[row];
+    }
+
+    public String getFirstName(int row) {
+        return decodeName(nameOffsets[2 * row], nameOffsets[2 * row + 1]);
+    }
+
+    public String getLastName(int row) {
+        return decodeName(nameOffsets[2 * row + 1], nameOffsets[2 * row + 2]);
+    }
+
+    public int getDobEpochDay(int row) {
+        return dobEpochDays[row];
+    }
+
+    public LocalDate getDob(int row) {
+        return LocalDate.ofEpochDay(dobEpochDays[row]);
+    }
+
+    public String getClassName(int row) {
+        return classDictionary[classCodes[row]];
+    }
+
+    public int getClassCode(int row) {
+        return classCodes[row];
+    }
+
+    /** Distinct class names; a row's class code is its index in this array. */
+    public String[] getClassDictionary() {
+        return classDictionary.clone();
+    }
+
+    public int getScore(int row) {
+        return scores[row];
+    }
+
+    public Student toStudent(int row) {
+        return new Student(getStudentId(row), getFirstName(row), getLastName(row), getDob(row),
+                getClassName(row), getScore(row));
+    }
+
+    /**
+     * Row index of the given studentId, or a negative value when absent.
+     */
+    public int indexOf(long studentId) {
+        return Arrays.binarySearch(studentIds, 0, size, studentId);
+    }
+
+    /**
+     * Rows of every class code, in studentId order.
+     */
+    public int[][] rowsByClass() {
+        int[] counts = new int[classDictionary.length];
+        for (int row = 0; row < size; row++) {
+            counts[classCodes[row]]++;
+        }
+        int[][] rows = new int[classDictionary.length][];
+        for (int code = 0; code < rows.length; code++) {
+            rows[code] = new int[counts[code]];
+        }
+        int[] fill = new int[classDictionary.length];
+        for (int row = 0; row < size; row++) {
+            int code = classCodes[row];
+            rows[code][fill[code]++] = row;
+        }
+        return rows;
+    }
+
+    /**
+     * Cursor over all rows, or over the given rows when not null.
+     */
+    public StudentCursor cursor(int[] rows) {
+        int count = rows != null ? rows.length : size;
+        return new StudentCursor() {
+            private int position = -1;
+            private int row;
+
+            @Override
+            public boolean next() {
+                if (position + 1 >= count) {
+                    return false;
+                }
+                position++;
+                row = rows != null ? rows[position] : position;
+                return true;
+            }
+
+            @Override
+            public long getStudentId() {
+                return studentIds[row];
+            }
+
+            @Override
+            public String getFirstName() {
+                return StudentColumns.this.getFirstName(row);
+            }
+
+            @Override
+            public String getLastName() {
+                return StudentColumns.this.getLastName(row);
+            }
+
+            @Override
+            public LocalDate getDob() {
+                return StudentColumns.this.getDob(row);
+            }
+
+            @Override
+            public String getClassName() {
+                return classDictionary[classCodes[row]];
+            }
+
+            @Override
+            public int getScore() {
+                return scores[row];
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private String decodeName(int from, int to) {
+        return new String(nameBytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Accumulates rows in any order; {@link #build()} sorts them by studentId.
+     */
+    public static final class Builder {
+
+        private int size;
+        private long[] studentIds = new long[1024];
+        private int[] scores = new int[1024];
+        private int[] dobEpochDays = new int[1024];
+        private short[] classCodes = new short[1024];
+        private int[] nameOffsets = new int[2 * 1024 + 1];
+        private byte[] nameBytes = new byte[16 * 1024];
+        private int nameLength;
+        private final Map<String, Short> classCodeByName = new HashMap<>();
+        private String[] classDictionary = new String[8];
+
+        public Builder add(long studentId, String firstName, String lastName, LocalDate dob, String className, int score) {
+            return add(studentId, firstName, lastName, (int) dob.toEpochDay(), className, score);
+        }
+
+        public Builder add(long studentId, String firstName, String lastName, int dobEpochDay, String className,
+                           int score) {
+            ensureRowCapacity();
+            studentIds[size] = studentId;
+            scores[size] = score;
+            dobEpochDays[size] = dobEpochDay;
+            classCodes[size] = classCode(className);
+            appendName(firstName);
+            nameOffsets[2 * size + 1] = nameLength;
+            appendName(lastName);
+            nameOffsets[2 * size + 2] = nameLength;
+            size++;
+            return this;
+        }
+
+        /**
+         * Adds a row whose names are copied as raw UTF-8 bytes from the given buffer ranges,
+         * without decoding them.
+         */
+        public Builder add(long studentId, ByteBuffer names, int firstNameFrom, int firstNameTo,
+                           int lastNameFrom, int lastNameTo, int dobEpochDay, String className, int score) {
+            ensureRowCapacity();
+            studentIds[size] = studentId;
+            scores[size] = score;
+            dobEpochDays[size] = dobEpochDay;
+            classCodes[size] = classCode(className);
+            appendName(names, firstNameFrom, firstNameTo);
+            nameOffsets[2 * size + 1] = nameLength;
+            appendName(names, lastNameFrom, lastNameTo);
+            nameOffsets[2 * size + 2] = nameLength;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public StudentColumns build() {
+            String[] dictionary = Arrays.copyOf(classDictionary, classCodeByName.size());
+            if (isSortedById()) {
+                return new StudentColumns(size, Arrays.copyOf(studentIds, size), Arrays.copyOf(scores, size),
+                        Arrays.copyOf(dobEpochDays, size), Arrays.copyOf(classCodes, size), dictionary,
+                        Arrays.copyOf(nameBytes, nameLength), Arrays.copyOf(nameOffsets, 2 * size + 1));
+            }
+
+            int[] order = sortOrder();
+
+            long[] sortedIds = new long[size];
+            int[] sortedScores = new int[size];
+            int[] sortedDobs = new int[size];
+            short[] sortedClasses = new short[size];
+            byte[] sortedNames = new byte[nameLength];
+            int[] sortedOffsets = new int[2 * size + 1];
+            int namePosition = 0;
+            for (int i = 0; i < size; i++) {
+                int row = order[i];
+                sortedIds[i] = studentIds[row];
+                sortedScores[i] = scores[row];
+                sortedDobs[i] = dobEpochDays[row];
+                sortedClasses[i] = classCodes[row];
+
+                int from = nameOffsets[2 * row];
+                int middle = nameOffsets[2 * row + 1];
+                int to = nameOffsets[2 * row + 2];
+                System.arraycopy(nameBytes, from, sortedNames, namePosition, to - from);
+                sortedOffsets[2 * i] = namePosition;
+                sortedOffsets[2 * i + 1] = namePosition + (middle - from);
+                namePosition += to - from;
+                sortedOffsets[2 * i + 2] = namePosition;
+            }
+            return new StudentColumns(size, sortedIds, sortedScores, sortedDobs, sortedClasses, dictionary,
+                    sortedNames, sortedOffsets);
+        }
+
+        /**
+         * Row numbers in studentId order, equal ids keeping their insertion order. An LSD radix
+         * sort over the 16-bit digits of the ids: linear in the row count, without boxing, and
+         * a digit shared by every id (the high ones, for the usual ids) costs one counting pass.
+         */
+        private int[] sortOrder() {
+            int[] order = new int[size];
+            int[] buffer = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            int[] counts = new int[1 << 16];
+            for (int shift = 0; shift < Long.SIZE; shift += 16) {
+                Arrays.fill(counts, 0);
+                for (int i = 0; i < size; i++) {
+                    counts[digit(studentIds[i], shift)]++;
+                }
+                if (counts[digit(studentIds[0], shift)] == size) {
+                    continue;
+                }
+                int position = 0;
+                for (int d = 0; d < counts.length; d++) {
+                    int count = counts[d];
+                    counts[d] = position;
+                    position += count;
+                }
+                for (int i = 0; i < size; i++) {
+                    int row = order[i];
+                    buffer[counts[digit(studentIds[row], shift)]++] = row;
+                }
+                int[] sorted = buffer;
+                buffer = order;
+                order = sorted;
+            }
+            return order;
+        }
+
+        private static int digit(long studentId, int shift) {
+            // Flipping the sign bit puts negative ids before positive ones
+            return (int) (((studentId ^ Long.MIN_VALUE) >>> shift) & 0xFFFF);
+        }
+
+        private boolean isSortedById() {
+            for (int i = 1; i < size; i++) {
+                if (studentIds[i - 1] > studentIds[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void ensureRowCapacity() {
+            if (size < studentIds.length) {
+                return;
+            }
+            int capacity = studentIds.length * 2;
+            studentIds = Arrays.copyOf(studentIds, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+            dobEpochDays = Arrays.copyOf(dobEpochDays, capacity);
+            classCodes = Arrays.copyOf(classCodes, capacity);
+            // nameOffsets[2 * size] is already set by the previous row (0 for the first one)
+            nameOffsets = Arrays.copyOf(nameOffsets, 2 * capacity + 1);
+        }
+
+        private short classCode(String className) {
+            Short code = classCodeByName.get(className);
+            if (code == null) {
+                if (classCodeByName.size() > Short.MAX_VALUE) {
+                    throw new IllegalStateException("Too many distinct class names");
+                }
+                code = (short) classCodeByName.size();
+                classCodeByName.put(className, code);
+                if (code >= classDictionary.length) {
+                    classDictionary = Arrays.copyOf(classDictionary, classDictionary.length * 2);
+                }
+                classDictionary[code] = className;
+            }
+            return code;
+        }
+
+        private void appendName(String name) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            ensureNameCapacity(bytes.length);
+            System.arraycopy(bytes, 0, nameBytes, nameLength, bytes.length);
+            nameLength += bytes.length;
+        }
+
+        private void appendName(ByteBuffer source, int from, int to) {
+            ensureNameCapacity(to - from);
+            source.get(from, nameBytes, nameLength, to - from);
+            nameLength += to - from;
+        }
+
+        private void ensureNameCapacity(int length) {
+            if (nameLength + length > nameBytes.length) {
+                nameBytes = Arrays.copyOf(nameBytes, Math.max(nameBytes.length * 2, nameLength + length));
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.xi9d.compulynx.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Compact binary columnar file of students, laid out like the columns of {@link StudentColumns}
+ * so it loads without any parsing. Big-endian throughout:
+ *
+ * <pre>
+ * header:    "SCOL" | version (int) | class count (short) | per class: length (short), UTF-8 name
+ * row group: row count n (int, 0 ends the file)
+ *            | studentIds (n longs) | DOB epoch days (n ints) | scores (n ints)
+ *            | class codes (n shorts) | name lengths (2n unsigned bytes: first, last)
+ *            | name bytes length (int) | name bytes (UTF-8, first and last name of every row)
+ * </pre>
+ *
+ * Rows are written in row groups of at most {@link #GROUP_ROWS}, so neither side ever holds
+ * more than one group in buffers.
+ */
+public final class StudentColumnsFile {
+
+    public static final String EXTENSION = ".scol";
+
+    static final int GROUP_ROWS = 65536;
+
+    private static final byte[] MAGIC = {'S', 'C', 'O', 'L'};
+    private static final int VERSION = 1;
+
+    private StudentColumnsFile() {
+    }
+
+    /**
+     * Writes every remaining row of the generator and returns their number.
+     */
+    public static long write(Path target, StudentRowGenerator students, JobProgress progress) throws IOException {
+        String[] classNames = StudentRowGenerator.getClassNames();
+        long[] studentIds = new long[GROUP_ROWS];
+        int[] dobEpochDays = new int[GROUP_ROWS];
+        int[] scores = new int[GROUP_ROWS];
+        short[] classCodes = new short[GROUP_ROWS];
+        byte[] nameLengths = new byte[2 * GROUP_ROWS];
+        byte[] names = new byte[2 * GROUP_ROWS * StudentRowGenerator.MAX_NAME_LENGTH];
+        ByteBuffer buffer = ByteBuffer.allocate(GROUP_ROWS * (8 + 4 + 4 + 2 + 2) + names.length + 8);
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            buffer.put(MAGIC).putInt(VERSION).putShort((short) classNames.length);
+            for (String className : classNames) {
+                byte[] bytes = className.getBytes(StandardCharsets.UTF_8);
+                buffer.putShort((short) bytes.length).put(bytes);
+            }
+            writeFully(channel, buffer);
+
+            long total = 0;
+            int rows;
+            do {
+                rows = 0;
+                int nameLength = 0;
+                while (rows < GROUP_ROWS && students.next()) {
+                    studentIds[rows] = students.getStudentId();
+                    dobEpochDays[rows] = students.getDobEpochDay();
+                    scores[rows] = students.getScore();
+                    classCodes[rows] = (short) students.getClassIndex();
+                    int firstLength = students.writeFirstName(names, nameLength);
+                    nameLength += firstLength;
+                    int lastLength = students.writeLastName(names, nameLength);
+                    nameLength += lastLength;
+                    nameLengths[2 * rows] = (byte) firstLength;
+                    nameLengths[2 * rows + 1] = (byte) lastLength;
+                    rows++;
+                }
+
+                buffer.putInt(rows);
+                if (rows > 0) {
+                    buffer.asLongBuffer().put(studentIds, 0, rows);
+                    buffer.position(buffer.position() + 8 * rows);
+                    buffer.asIntBuffer().put(dobEpochDays, 0, rows);
+                    buffer.position(buffer.position() + 4 * rows);
+                    buffer.asIntBuffer().put(scores, 0, rows);
+                    buffer.position(buffer.position() + 4 * rows);
+                    buffer.asShortBuffer().put(classCodes, 0, rows);
+                    buffer.position(buffer.position() + 2 * rows);
+                    buffer.put(nameLengths, 0, 2 * rows);
+                    buffer.putInt(nameLength).put(names, 0, nameLength);
+                }
+                writeFully(channel, buffer);
+
+                total += rows;
+                progress.advance(rows);
+                progress.checkCancelled();
+            } while (rows > 0);
+            return total;
+        }
+    }
+
+    /**
+     * Loads a file written by {@link #write} into a columnar snapshot.
+     */
+    public static StudentColumns read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, MAGIC.length + 4 + 2);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            int version = header.getInt();
+            if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+                throw new IOException("Not a version " + VERSION + " student columns file: " + file);
+            }
+            String[] classNames = new String[header.getShort()];
+            for (int code = 0; code < classNames.length; code++) {
+                byte[] bytes = new byte[readFully(channel, 2).getShort()];
+                readFully(channel, bytes.length).get(bytes);
+                classNames[code] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            StudentColumns.Builder columns = new StudentColumns.Builder();
+            int rows;
+            while ((rows = readFully(channel, 4).getInt()) > 0) {
+                ByteBuffer group = readFully(channel, rows * (8 + 4 + 4 + 2 + 2) + 4);
+                int idsAt = 0;
+                int datesAt = idsAt + 8 * rows;
+                int scoresAt = datesAt + 4 * rows;
+                int codesAt = scoresAt + 4 * rows;
+                int lengthsAt = codesAt + 2 * rows;
+                ByteBuffer names = readFully(channel, group.getInt(lengthsAt + 2 * rows));
+
+                int nameAt = 0;
+                for (int row = 0; row < rows; row++) {
+                    int firstTo = nameAt + Byte.toUnsignedInt(group.get(lengthsAt + 2 * row));
+                    int lastTo = firstTo + Byte.toUnsignedInt(group.get(lengthsAt + 2 * row + 1));
+                    columns.add(group.getLong(idsAt + 8 * row), names, nameAt, firstTo, firstTo, lastTo,
+                            group.getInt(datesAt + 4 * row), classNames[group.getShort(codesAt + 2 * row)],
+                            group.getInt(scoresAt + 4 * row));
+                    nameAt = lastTo;
+                }
+            }
+            return columns.build();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Truncated student columns file");
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,59 @@
+package com.xi9d.compulynx.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the total number of students per class filter for a short time, so paging through
+ * the student list does not run a COUNT(*) over the whole table on every request. Entries
+ * expire after app.pagination.count-cache-seconds and are all dropped when an upload finishes.
+ */
+@Component
+public class StudentCountCache {
+
+    // Keys are client supplied class names; past this many the cache is simply reset
+    private static final int MAX_ENTRIES = 1000;
+    private static final String ALL_CLASSES = "\u0000all";
+
+    private final Map<String, Entry> counts = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    public StudentCountCache(@Value("${app.pagination.count-cache-seconds:60}") long ttlSeconds) {
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    }
+
+    public long get(String className, LongSupplier counter) {
+        String key = className != null ? className : ALL_CLASSES;
+        long now = System.nanoTime();
+
+        Entry entry = counts.get(key);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            return entry.count;
+        }
+
+        long count = counter.getAsLong();
+        if (counts.size() >= MAX_ENTRIES) {
+            counts.clear();
+        }
+        counts.put(key, new Entry(count, now));
+        return count;
+    }
+
+    public void invalidate() {
+        counts.clear();
+    }
+
+    private static final class Entry {
+        private final long count;
+        private final long loadedAt;
+
+        private Entry(long count, long loadedAt) {
+            this.count = count;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the students of the most recent processed CSV file in memory so the read endpoints
+ * don't parse the whole file on every request.
+ *
+ * The cached {@link Snapshot} is immutable and tied to the file path, modification time and
+ * size it was loaded from. When a newer file shows up (or the file changes) the next caller
+ * loads a fresh snapshot and swaps it in atomically; concurrent readers keep using the old one
+ * until then.
+ */
+@Component
+@Slf4j
+public class StudentCsvCache {
+
+    @FunctionalInterface
+    public interface Loader {
+        StudentColumns load(Path csvFile) throws IOException;
+    }
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+
+    public Snapshot get(Path csvFile, Loader loader) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(csvFile);
+        long size = Files.size(csvFile);
+
+        Snapshot snapshot = current.get();
+        if (snapshot.isFor(csvFile, modified, size)) {
+            return snapshot;
+        }
+
+        // Only one thread loads a given file, the others wait for its snapshot
+        synchronized (this) {
+            snapshot = current.get();
+            if (snapshot.isFor(csvFile, modified, size)) {
+                return snapshot;
+            }
+            long start = System.nanoTime();
+            snapshot = Snapshot.of(csvFile, modified, size, loader.load(csvFile));
+            current.set(snapshot);
+            log.info("Cached {} students from {} in {} ms", snapshot.size(), csvFile,
+                    (System.nanoTime() - start) / 1_000_000);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Students of one CSV file in columnar form, sorted by studentId, with the row positions
+     * and the statistics of every class.
+     */
+    public static final class Snapshot {
+
+        public static final Snapshot EMPTY = new Snapshot(null, null, -1, StudentColumns.EMPTY, Map.of(),
+                new StudentStatistics());
+
+        private static final int[] NO_ROWS = new int[0];
+
+        private final Path file;
+        private final FileTime modified;
+        private final long fileSize;
+        private final StudentColumns columns;
+        private final Map<String, int[]> classPostings;
+        private final StudentStatistics statistics;
+
+        private Snapshot(Path file, FileTime modified, long fileSize, StudentColumns columns,
+                         Map<String, int[]> classPostings, StudentStatistics statistics) {
+            this.file = file;
+            this.modified = modified;
+            this.fileSize = fileSize;
+            this.columns = columns;
+            this.classPostings = classPostings;
+            this.statistics = statistics;
+        }
+
+        static Snapshot of(Path file, FileTime modified, long fileSize, StudentColumns columns) {
+            String[] classNames = columns.getClassDictionary();
+            int[][] rowsByClass = columns.rowsByClass();
+            Map<String, int[]> postings = new HashMap<>();
+            for (int code = 0; code < classNames.length; code++) {
+                postings.put(classNames[code], rowsByClass[code]);
+            }
+            return new Snapshot(file, modified, fileSize, columns, Collections.unmodifiableMap(postings),
+                    StudentStatistics.of(columns));
+        }
+
+        /**
+         * Identifies the file version the snapshot was loaded from, for use in cache keys.
+         */
+        public String getSourceId() {
+            return file + "@" + (modified != null ? modified.toMillis() : 0) + ":" + fileSize;
+        }
+
+        boolean isFor(Path file, FileTime modified, long fileSize) {
+            return file.equals(this.file) && modified.equals(this.modified) && fileSize == this.fileSize;
+        }
+
+        public boolean isEmpty() {
+            return columns.size() == 0;
+        }
+
+        public int size() {
+            return columns.size();
+        }
+
+        public StudentColumns getColumns() {
+            return columns;
+        }
+
+        /**
+         * Per-class aggregates, computed once when the snapshot is loaded.
+         */
+        public StudentStatistics getStatistics() {
+            return statistics;
+        }
+
+        /**
+         * All students as a read-only list; every element is materialised on access.
+         */
+        public List<Student> getStudents() {
+            return getStudents(null);
+        }
+
+        /**
+         * Students of the given class in studentId order, or all students when className is empty.
+         */
+        public List<Student> getStudentsByClass(String className) {
+            return getStudents(rowsOf(className));
+        }
+
+        /**
+         * Cursor over the given class in studentId order, or over all students when className is empty.
+         */
+        public StudentCursor cursor(String className) {
+            return columns.cursor(rowsOf(className));
+        }
+
+        private int[] rowsOf(String className) {
+            if (className == null || className.isEmpty()) {
+                return null;
+            }
+            return classPostings.getOrDefault(className, NO_ROWS);
+        }
+
+        private List<Student> getStudents(int[] rows) {
+            return new AbstractList<>() {
+                @Override
+                public Student get(int index) {
+                    return columns.toStudent(rows != null ? rows[index] : index);
+                }
+
+                @Override
+                public int size() {
+                    return rows != null ? rows.length : columns.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package com.xi9d.compulynx.service;
+
+import com.opencsv.CSVParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Reads a processed student CSV (studentId, firstName, lastName, DOB, class, score) by mapping
+ * the file into memory and parsing the fields straight from the mapped bytes; a gzip or zstd
+ * compressed file is decoded as a stream into a reused buffer and parsed the same way. Numbers
+ * and ISO dates are decoded in place and names are copied as raw bytes into
+ * {@link StudentColumns}, so no String is created per field.
+ *
+ * Plain and simply quoted fields take the fast path. A record with anything else (escaped
+ * quotes, backslashes, a line break inside a quoted field, extra columns or a value that does
+ * not parse) is handed to OpenCSV instead and treated exactly as before. Instances are not
+ * thread safe; use {@link #scan(Path)}.
+ */
+@Slf4j
+public final class StudentCsvScanner {
+
+    private static final int COLUMNS = 6;
+    // Files larger than this are mapped in consecutive windows, each starting on a line boundary
+    private static final long MAX_WINDOW = 1L << 30;
+    // Compressed files are decoded into a heap window of this size
+    private static final int STREAM_WINDOW = 8 << 20;
+    private static final int MAX_CACHED_CLASSES = 64;
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+
+    private final Path csvFile;
+    private final long maxWindow;
+    private final StudentColumns.Builder students = new StudentColumns.Builder();
+    private final CSVParser fallbackParser = new CSVParser();
+
+    // Field boundaries of the current record, as [from, to) positions in the window
+    private final int[] fieldFrom = new int[COLUMNS];
+    private final int[] fieldTo = new int[COLUMNS];
+
+    // Class names seen so far, matched on their bytes so the common case allocates nothing
+    private byte[][] classKeys = new byte[8][];
+    private String[] classNames = new String[8];
+    private int classCount;
+
+    private boolean header = true;
+    private long recordCount;
+    private long fallbackCount;
+    private long errorCount;
+
+    StudentCsvScanner(Path csvFile, long maxWindow) {
+        this.csvFile = csvFile;
+        this.maxWindow = maxWindow;
+    }
+
+    public static StudentColumns scan(Path csvFile) throws IOException {
+        return new StudentCsvScanner(csvFile, MAX_WINDOW).scan();
+    }
+
+    StudentColumns scan() throws IOException {
+        CompressionCodec codec = CompressionCodec.detect(csvFile);
+        if (codec == CompressionCodec.NONE) {
+            scanMapped();
+        } else {
+            scanStream(codec);
+        }
+
+        log.info("Successfully read {} students from CSV file: {} ({} records via OpenCSV, {} rejected)",
+                students.size(), csvFile, fallbackCount, errorCount);
+        return students.build();
+    }
+
+    private void scanMapped() throws IOException {
+        try (FileChannel channel = FileChannel.open(csvFile, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long windowStart = 0;
+
+            while (windowStart < fileSize) {
+                long windowSize = Math.min(fileSize - windowStart, maxWindow);
+                boolean lastWindow = windowStart + windowSize == fileSize;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+                windowStart += scanWindow(window, (int) windowSize, lastWindow);
+            }
+        }
+    }
+
+    /**
+     * A compressed file cannot be mapped: it is decoded as a stream into a heap window that is
+     * parsed the same way, the unfinished record at the end of each window moving to the front
+     * of the next.
+     */
+    private void scanStream(CompressionCodec codec) throws IOException {
+        int windowSize = (int) Math.min(maxWindow, STREAM_WINDOW);
+        byte[] bytes = new byte[windowSize];
+        ByteBuffer window = ByteBuffer.wrap(bytes);
+
+        try (InputStream inputStream = codec.decoder(Files.newInputStream(csvFile))) {
+            int filled = 0;
+            boolean end = false;
+            while (!end || filled > 0) {
+                while (filled < windowSize && !end) {
+                    int n = inputStream.read(bytes, filled, windowSize - filled);
+                    if (n < 0) {
+                        end = true;
+                    } else {
+                        filled += n;
+                    }
+                }
+                int consumed = scanWindow(window, filled, end);
+                System.arraycopy(bytes, consumed, bytes, 0, filled - consumed);
+                filled -= consumed;
+            }
+        }
+    }
+
+    /**
+     * Parses the complete records of a window and returns the number of bytes they take. Only
+     * the last window of the file may end in the middle of a line.
+     */
+    private int scanWindow(ByteBuffer window, int limit, boolean lastWindow) throws IOException {
+        int position = 0;
+        while (position < limit) {
+            int lineEnd = indexOf(window, (byte) '\n', position, limit);
+            if (lineEnd < 0) {
+                if (!lastWindow) {
+                    break;
+                }
+                lineEnd = limit;
+            }
+
+            if (header) {
+                header = false;
+                log.info("Reading from CSV file: {}, Header: {}", csvFile,
+                        decode(window, position, trimLineEnd(window, position, lineEnd)));
+                position = Math.min(lineEnd + 1, limit);
+                continue;
+            }
+
+            if (parseRecord(window, position, trimLineEnd(window, position, lineEnd))) {
+                recordCount++;
+                position = Math.min(lineEnd + 1, limit);
+                continue;
+            }
+
+            int recordEnd = findRecordEnd(window, position, lineEnd, limit, lastWindow);
+            if (recordEnd < 0) {
+                // The record runs past this window, the next one starts from its first line
+                break;
+            }
+            recordCount++;
+            fallbackCount++;
+            parseWithOpenCsv(decode(window, position, trimLineEnd(window, position, recordEnd)));
+            position = Math.min(recordEnd + 1, limit);
+        }
+
+        if (position == 0 && !lastWindow) {
+            throw new IOException("CSV record larger than " + limit + " bytes in " + csvFile);
+        }
+        return position;
+    }
+
+    /**
+     * Fast path for one line. Returns false, without adding anything, when the line needs the
+     * full CSV parser.
+     */
+    private boolean parseRecord(ByteBuffer buffer, int from, int to) {
+        if (from == to) {
+            // Empty line, OpenCSV would return a single empty column and it would be skipped
+            return true;
+        }
+
+        int position = from;
+        for (int column = 0; column < COLUMNS; column++) {
+            position = scanField(buffer, position, to, column);
+            if (position < 0) {
+                return false;
+            }
+        }
+
+        long studentId = parseLong(buffer, fieldFrom[0], fieldTo[0]);
+        int dobEpochDay = parseIsoDate(buffer, fieldFrom[3], fieldTo[3]);
+        long score = parseLong(buffer, fieldFrom[5], fieldTo[5]);
+        if (studentId == Long.MIN_VALUE || dobEpochDay == Integer.MIN_VALUE
+                || score == Long.MIN_VALUE || score != (int) score) {
+            return false;
+        }
+
+        students.add(studentId, buffer, fieldFrom[1], fieldTo[1], fieldFrom[2], fieldTo[2],
+                dobEpochDay, className(buffer, fieldFrom[4], fieldTo[4]), (int) score);
+        return true;
+    }
+
+    /**
+     * Records the trimmed bounds of one field and returns the position after it, or -1 when
+     * the field is not a plain or simply quoted value followed by the expected delimiter.
+     */
+    private int scanField(ByteBuffer buffer, int from, int to, int column) {
+        int position = from;
+        int valueFrom;
+        int valueTo;
+
+        if (position < to && buffer.get(position) == '"') {
+            valueFrom = position + 1;
+            position = valueFrom;
+            while (position < to && buffer.get(position) != '"') {
+                if (buffer.get(position) == '\\') {
+                    return -1;
+                }
+                position++;
+            }
+            if (position >= to) {
+                // Unterminated quote: the value carries on over the next line
+                return -1;
+            }
+            valueTo = position;
+            position++;
+        } else {
+            valueFrom = position;
+            while (position < to && buffer.get(position) != ',') {
+                byte b = buffer.get(position);
+                if (b == '"' || b == '\\') {
+                    return -1;
+                }
+                position++;
+            }
+            valueTo = position;
+        }
+
+        if (column == COLUMNS - 1) {
+            if (position != to) {
+                return -1;
+            }
+        } else {
+            if (position >= to || buffer.get(position) != ',') {
+                return -1;
+            }
+            position++;
+        }
+
+        // Same trimming as String.trim() on the decoded value
+        while (valueFrom < valueTo && (buffer.get(valueFrom) & 0xff) <= ' ') {
+            valueFrom++;
+        }
+        while (valueTo > valueFrom && (buffer.get(valueTo - 1) & 0xff) <= ' ') {
+            valueTo--;
+        }
+        fieldFrom[column] = valueFrom;
+        fieldTo[column] = valueTo;
+        return position;
+    }
+
+    /**
+     * End of the record starting at from, extended over line breaks inside quoted values.
+     * Returns -1 when the record continues beyond a window that is not the last one.
+     */
+    private static int findRecordEnd(ByteBuffer buffer, int from, int lineEnd, int limit, boolean lastWindow) {
+        int end = lineEnd;
+        while (countQuotes(buffer, from, end) % 2 != 0 && end < limit) {
+            int next = indexOf(buffer, (byte) '\n', end + 1, limit);
+            if (next < 0) {
+                if (!lastWindow) {
+                    return -1;
+                }
+                return limit;
+            }
+            end = next;
+        }
+        return end;
+    }
+
+    private void parseWithOpenCsv(String line) {
+        String[] record = null;
+        try {
+            record = fallbackParser.parseLine(line);
+            if (record.length < COLUMNS) {
+                return;
+            }
+            long studentId = Long.parseLong(record[0].trim());
+            String firstName = record[1].trim();
+            String lastName = record[2].trim();
+            LocalDate dob = LocalDate.parse(record[3].trim());
+            String className = record[4].trim();
+            int score = Integer.parseInt(record[5].trim());
+
+            students.add(studentId, firstName, lastName, dob, className, score);
+        } catch (Exception e) {
+            errorCount++;
+            log.warn("Error parsing record {}: {} - Record: {}", recordCount, e.getMessage(),
+                    record != null ? Arrays.toString(record) : line);
+        }
+    }
+
+    private String className(ByteBuffer buffer, int from, int to) {
+        int length = to - from;
+        for (int i = 0; i < classCount; i++) {
+            byte[] key = classKeys[i];
+            if (key.length == length && matches(buffer, from, key)) {
+                return classNames[i];
+            }
+        }
+
+        String name = decode(buffer, from, to);
+        if (classCount < MAX_CACHED_CLASSES) {
+            if (classCount == classKeys.length) {
+                classKeys = Arrays.copyOf(classKeys, classCount * 2);
+                classNames = Arrays.copyOf(classNames, classCount * 2);
+            }
+            byte[] key = new byte[length];
+            buffer.get(from, key);
+            classKeys[classCount] = key;
+            classNames[classCount] = name;
+            classCount++;
+        }
+        return name;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int from, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(from + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses an optionally signed decimal of up to 18 digits, or returns Long.MIN_VALUE.
+     */
+    private static long parseLong(ByteBuffer buffer, int from, int to) {
+        boolean negative = from < to && buffer.get(from) == '-';
+        int position = negative ? from + 1 : from;
+        if (position == to || to - position > 18) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (; position < to; position++) {
+            int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a yyyy-MM-dd date into its epoch day, or returns Integer.MIN_VALUE.
+     */
+    private static int parseIsoDate(ByteBuffer buffer, int from, int to) {
+        if (to - from != 10 || buffer.get(from + 4) != '-' || buffer.get(from + 7) != '-') {
+            return Integer.MIN_VALUE;
+        }
+        int year = digits(buffer, from, 4);
+        int month = digits(buffer, from + 5, 2);
+        int day = digits(buffer, from + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return Integer.MIN_VALUE;
+        }
+
+        // Same arithmetic as LocalDate.toEpochDay() for years 0 to 9999
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367L * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return (int) (total - DAYS_0000_TO_1970);
+    }
+
+    private static int digits(ByteBuffer buffer, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int countQuotes(ByteBuffer buffer, int from, int to) {
+        int quotes = 0;
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    private static int trimLineEnd(ByteBuffer buffer, int from, int to) {
+        return to > from && buffer.get(to - 1) == '\r' ? to - 1 : to;
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,30 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+
+import java.time.LocalDate;
+
+/**
+ * Forward-only view over a sequence of students, positioned before the first row until
+ * {@link #next()} is called. The getters read the current row, so a source can hand rows to
+ * the exporters without creating a {@link Student} per row.
+ */
+public interface StudentCursor extends AutoCloseable {
+
+    boolean next();
+
+    long getStudentId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    LocalDate getDob();
+
+    String getClassName();
+
+    int getScore();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,146 @@
+package com.xi9d.compulynx.service;
+
+import java.util.Arrays;
+
+/**
+ * Set of student ids stored like a roaring bitmap. The ids are split into pages of 65536 by
+ * their high 48 bits, and each page stores the low 16 bits of its ids: as a sorted
+ * {@code char[]} while it holds up to 4096 ids (2 bytes per id), then as a bitmap of 1024 longs
+ * (8 KB). The page keys are kept in a sorted primitive array, so nothing is boxed and a lookup
+ * is a binary search plus a bit test; consecutive lookups in the same page skip the search.
+ *
+ * A million consecutive ids take 16 bitmap pages, 128 KB, where a {@code HashSet<Long>}
+ * needs about 50 MB; random ids cost about 2 bytes each plus the page keys.
+ *
+ * Instances are not thread safe.
+ */
+public final class StudentIdSet {
+
+    private static final int PAGE_BITS = 16;
+    private static final int BITMAP_WORDS = (1 << PAGE_BITS) / Long.SIZE;
+    // Above this many ids a bitmap is smaller than the array
+    private static final int MAX_ARRAY_SIZE = 4096;
+
+    private long[] keys = new long[16];
+    // char[] or long[] bitmap per page
+    private Object[] containers = new Object[16];
+    private int[] cardinalities = new int[16];
+    private int pageCount;
+    private long size;
+
+    // Page of the last lookup
+    private long lastKey = -1;
+    private int lastIndex;
+
+    public boolean contains(long id) {
+        int index = indexOf(id >>> PAGE_BITS);
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) id;
+        Object container = containers[index];
+        if (container instanceof long[] bitmap) {
+            return (bitmap[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, cardinalities[index], low) >= 0;
+    }
+
+    /**
+     * Adds the id and returns true if it was not in the set yet.
+     */
+    public boolean add(long id) {
+        long key = id >>> PAGE_BITS;
+        int index = indexOf(key);
+        if (index < 0) {
+            index = insertPage(-index - 1, key);
+        }
+        char low = (char) id;
+        Object container = containers[index];
+        if (container instanceof long[] bitmap) {
+            long bit = 1L << low;
+            if ((bitmap[low >>> 6] & bit) != 0) {
+                return false;
+            }
+            bitmap[low >>> 6] |= bit;
+        } else {
+            char[] array = (char[]) container;
+            int cardinality = cardinalities[index];
+            int position = Arrays.binarySearch(array, 0, cardinality, low);
+            if (position >= 0) {
+                return false;
+            }
+            if (cardinality == MAX_ARRAY_SIZE) {
+                long[] bitmap = toBitmap(array, cardinality);
+                bitmap[low >>> 6] |= 1L << low;
+                containers[index] = bitmap;
+            } else {
+                position = -position - 1;
+                if (cardinality == array.length) {
+                    array = Arrays.copyOf(array, Math.min(cardinality * 2, MAX_ARRAY_SIZE));
+                    containers[index] = array;
+                }
+                System.arraycopy(array, position, array, position + 1, cardinality - position);
+                array[position] = low;
+            }
+        }
+        cardinalities[index]++;
+        size++;
+        return true;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /** Heap taken by the pages, in bytes. */
+    public long getMemoryBytes() {
+        long bytes = (long) keys.length * (Long.BYTES + Integer.BYTES + 4);
+        for (int i = 0; i < pageCount; i++) {
+            Object container = containers[i];
+            bytes += container instanceof long[] bitmap ? (long) bitmap.length * Long.BYTES
+                    : (long) ((char[]) container).length * Character.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Index of the page, or -(insertion point) - 1 when there is none.
+     */
+    private int indexOf(long key) {
+        if (key == lastKey) {
+            return lastIndex;
+        }
+        int index = Arrays.binarySearch(keys, 0, pageCount, key);
+        if (index >= 0) {
+            lastKey = key;
+            lastIndex = index;
+        }
+        return index;
+    }
+
+    private int insertPage(int index, long key) {
+        if (pageCount == keys.length) {
+            keys = Arrays.copyOf(keys, pageCount * 2);
+            containers = Arrays.copyOf(containers, pageCount * 2);
+            cardinalities = Arrays.copyOf(cardinalities, pageCount * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, pageCount - index);
+        System.arraycopy(containers, index, containers, index + 1, pageCount - index);
+        System.arraycopy(cardinalities, index, cardinalities, index + 1, pageCount - index);
+        keys[index] = key;
+        containers[index] = new char[4];
+        cardinalities[index] = 0;
+        pageCount++;
+        lastKey = key;
+        lastIndex = index;
+        return index;
+    }
+
+    private static long[] toBitmap(char[] array, int cardinality) {
+        long[] bitmap = new long[BITMAP_WORDS];
+        for (int i = 0; i < cardinality; i++) {
+            bitmap[array[i] >>> 6] |= 1L << array[i];
+        }
+        return bitmap;
+    }
+}
@@ -0,0 +1,38 @@
+package com.xi9d.compulynx.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination. It carries the studentId of the last row
+ * of a page; the next page starts right after it. Clients must treat it as a black box.
+ */
+public final class StudentPageCursor {
+
+    private static final String PREFIX = "s1:";
+
+    private StudentPageCursor() {
+    }
+
+    public static String encode(long lastStudentId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastStudentId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return the studentId after which the next page starts
+     * @throws IllegalArgumentException when the token was not produced by {@link #encode(long)}
+     */
+    public static long decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            // Also covers malformed base64 and NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
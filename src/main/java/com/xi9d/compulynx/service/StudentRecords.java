@@ -0,0 +1,58 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+
+import java.time.LocalDate;
+
+/**
+ * Conversion of CSV records (studentId, firstName, lastName, DOB, class, score) to students.
+ */
+public final class StudentRecords {
+
+    /** Added to the score of every row when an Excel file is processed to CSV. */
+    public static final int PROCESSING_SCORE_BONUS = 10;
+
+    /** Added to the score of every record uploaded to the database. */
+    public static final int UPLOAD_SCORE_BONUS = 5;
+
+    private StudentRecords() {
+    }
+
+    /**
+     * The CSV record written for a sheet row when an Excel file is processed: the values
+     * padded with empty strings or cut to columnCount, with the processing bonus added to a
+     * numeric score. A score that is not a number is kept as it is.
+     */
+    public static String[] toProcessedRecord(String[] values, int columnCount) {
+        String[] record = new String[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            record[column] = column < values.length ? values[column] : "";
+        }
+        // Score is in column 5
+        if (columnCount > 5 && !record[5].isEmpty()) {
+            try {
+                record[5] = String.valueOf(Integer.parseInt(record[5]) + PROCESSING_SCORE_BONUS);
+            } catch (NumberFormatException e) {
+                // Left unchanged
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Builds the student stored for an uploaded CSV record, adding the upload bonus to the score.
+     *
+     * @throws NumberFormatException                  if the id or score is not a number
+     * @throws java.time.format.DateTimeParseException if the DOB is not an ISO date
+     */
+    public static Student fromUploadRecord(String[] record) {
+        Student student = new Student();
+        student.setStudentId(Long.parseLong(record[0].trim()));
+        student.setFirstName(record[1].trim());
+        student.setLastName(record[2].trim());
+        student.setDob(LocalDate.parse(record[3].trim()));
+        student.setClassName(record[4].trim());
+        student.setScore(Integer.parseInt(record[5].trim()) + UPLOAD_SCORE_BONUS);
+        return student;
+    }
+}
@@ -0,0 +1,267 @@
+package com.xi9d.compulynx.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible source of synthetic students: names of 3 to 8 lowercase letters, a date of birth
+ * between 2000-01-01 and 2010-12-31, one of the generated class names and a score from 55 to 75.
+ *
+ * The rows of a seed never change. The random stream is reseeded at the start of every block
+ * of {@link #BLOCK_SIZE} rows from the seed and the block number, so a generator positioned at
+ * any row (one per shard, for instance) produces exactly the rows a single generator would.
+ *
+ * Nothing is allocated per row: names are generated into reusable byte buffers, and dates,
+ * class names and scores come from precomputed tables, both as strings and as the ASCII bytes
+ * the {@code write...} methods copy into an output buffer. Only {@link #getFirstName()} and
+ * {@link #getLastName()} create a string.
+ *
+ * Instances are not thread safe; use one generator per thread.
+ */
+public final class StudentRowGenerator implements StudentCursor {
+
+    public static final int BLOCK_SIZE = 4096;
+
+    /** Longest generated name, in bytes. */
+    public static final int MAX_NAME_LENGTH = 8;
+
+    /** Longest CSV row {@link #writeCsvRow} can write, line separator included. */
+    public static final int MAX_CSV_ROW_BYTES = 19 + 1 + 8 + 1 + 8 + 1 + 10 + 1 + 6 + 1 + 2 + 1;
+
+    static final String[] CLASS_NAMES = {"Class1", "Class2", "Class3", "Class4", "Class5"};
+
+    private static final int MIN_NAME_LENGTH = 3;
+    private static final int MIN_SCORE = 55;
+    private static final int MAX_SCORE = 75;
+    private static final int FIRST_EPOCH_DAY = (int) LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final int DAY_COUNT = (int) LocalDate.of(2010, 12, 31).toEpochDay() - FIRST_EPOCH_DAY + 1;
+
+    private static final LocalDate[] DATES = new LocalDate[DAY_COUNT];
+    private static final String[] DATE_STRINGS = new String[DAY_COUNT];
+    private static final byte[][] DATE_BYTES = new byte[DAY_COUNT][];
+    private static final byte[][] CLASS_NAME_BYTES = new byte[CLASS_NAMES.length][];
+    private static final String[] SCORE_STRINGS = new String[MAX_SCORE - MIN_SCORE + 1];
+    private static final byte[][] SCORE_BYTES = new byte[SCORE_STRINGS.length][];
+
+    static {
+        for (int day = 0; day < DAY_COUNT; day++) {
+            DATES[day] = LocalDate.ofEpochDay(FIRST_EPOCH_DAY + day);
+            DATE_STRINGS[day] = DATES[day].toString();
+            DATE_BYTES[day] = DATE_STRINGS[day].getBytes(StandardCharsets.US_ASCII);
+        }
+        for (int i = 0; i < CLASS_NAMES.length; i++) {
+            CLASS_NAME_BYTES[i] = CLASS_NAMES[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        for (int i = 0; i < SCORE_STRINGS.length; i++) {
+            SCORE_STRINGS[i] = Integer.toString(MIN_SCORE + i);
+            SCORE_BYTES[i] = SCORE_STRINGS[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final long seed;
+    private final long lastStudentId;
+    private SplittableRandom random;
+
+    private long studentId;
+    private final byte[] firstName = new byte[MAX_NAME_LENGTH];
+    private int firstNameLength;
+    private final byte[] lastName = new byte[MAX_NAME_LENGTH];
+    private int lastNameLength;
+    private int day;
+    private int classIndex;
+    private int score;
+
+    /**
+     * Generator of the students firstStudentId to lastStudentId, inclusive; studentId n is
+     * always the n-th row of the seed.
+     */
+    public StudentRowGenerator(long seed, long firstStudentId, long lastStudentId) {
+        if (firstStudentId < 1) {
+            throw new IllegalArgumentException("Student ids start at 1");
+        }
+        this.seed = seed;
+        this.lastStudentId = lastStudentId;
+        // Start at the beginning of the block and skip to the first row, so a generator
+        // started mid-block stays in step with one started earlier
+        this.studentId = (firstStudentId - 1) / BLOCK_SIZE * BLOCK_SIZE;
+        while (studentId < firstStudentId - 1) {
+            generateNext();
+        }
+    }
+
+    /**
+     * A seed for callers that did not ask for reproducible data.
+     */
+    public static long randomSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    public static String[] getClassNames() {
+        return CLASS_NAMES.clone();
+    }
+
+    @Override
+    public boolean next() {
+        if (studentId >= lastStudentId) {
+            return false;
+        }
+        generateNext();
+        return true;
+    }
+
+    private void generateNext() {
+        if (studentId % BLOCK_SIZE == 0) {
+            random = blockRandom(studentId / BLOCK_SIZE);
+        }
+        studentId++;
+        firstNameLength = generateName(firstName);
+        lastNameLength = generateName(lastName);
+        day = random.nextInt(DAY_COUNT);
+        classIndex = random.nextInt(CLASS_NAMES.length);
+        score = MIN_SCORE + random.nextInt(MAX_SCORE - MIN_SCORE + 1);
+    }
+
+    private SplittableRandom blockRandom(long block) {
+        // Two generators whose seeds differ only in the block number must not correlate
+        return new SplittableRandom(mix(seed + mix(block + 0x9E3779B97F4A7C15L)));
+    }
+
+    /**
+     * Fills the buffer with 3 to 8 random lowercase letters and returns their number. Each
+     * letter takes 16 random bits, so one long covers four letters.
+     */
+    private int generateName(byte[] name) {
+        int length = MIN_NAME_LENGTH + random.nextInt(MAX_NAME_LENGTH - MIN_NAME_LENGTH + 1);
+        long bits = 0;
+        for (int i = 0; i < length; i++) {
+            if ((i & 3) == 0) {
+                bits = random.nextLong();
+            }
+            name[i] = (byte) ('a' + (((bits & 0xFFFF) * 26) >>> 16));
+            bits >>>= 16;
+        }
+        return length;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    @Override
+    public long getStudentId() {
+        return studentId;
+    }
+
+    @Override
+    public String getFirstName() {
+        return new String(firstName, 0, firstNameLength, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String getLastName() {
+        return new String(lastName, 0, lastNameLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /** Copies the first name as ASCII bytes into the buffer and returns its length. */
+    public int writeFirstName(byte[] buffer, int offset) {
+        System.arraycopy(firstName, 0, buffer, offset, firstNameLength);
+        return firstNameLength;
+    }
+
+    /** Copies the last name as ASCII bytes into the buffer and returns its length. */
+    public int writeLastName(byte[] buffer, int offset) {
+        System.arraycopy(lastName, 0, buffer, offset, lastNameLength);
+        return lastNameLength;
+    }
+
+    @Override
+    public LocalDate getDob() {
+        return DATES[day];
+    }
+
+    /** The date of birth in ISO format, from the precomputed table. */
+    public String getDobString() {
+        return DATE_STRINGS[day];
+    }
+
+    public int getDobEpochDay() {
+        return FIRST_EPOCH_DAY + day;
+    }
+
+    @Override
+    public String getClassName() {
+        return CLASS_NAMES[classIndex];
+    }
+
+    /** Index of the class name in {@link #getClassNames()}. */
+    public int getClassIndex() {
+        return classIndex;
+    }
+
+    @Override
+    public int getScore() {
+        return score;
+    }
+
+    /** The score as a string, from the precomputed table. */
+    public String getScoreString() {
+        return SCORE_STRINGS[score - MIN_SCORE];
+    }
+
+    /**
+     * Writes the current row as a CSV line (studentId,firstName,lastName,DOB,class,score and a
+     * newline) into the buffer at the offset, which needs {@link #MAX_CSV_ROW_BYTES} free bytes,
+     * and returns the offset after it. No value of a generated row needs quoting.
+     */
+    public int writeCsvRow(byte[] buffer, int offset) {
+        offset = writeLong(studentId, buffer, offset);
+        buffer[offset++] = ',';
+        offset = copy(firstName, firstNameLength, buffer, offset);
+        buffer[offset++] = ',';
+        offset = copy(lastName, lastNameLength, buffer, offset);
+        buffer[offset++] = ',';
+        offset = copy(DATE_BYTES[day], DATE_BYTES[day].length, buffer, offset);
+        buffer[offset++] = ',';
+        offset = copy(CLASS_NAME_BYTES[classIndex], CLASS_NAME_BYTES[classIndex].length, buffer, offset);
+        buffer[offset++] = ',';
+        byte[] scoreBytes = SCORE_BYTES[score - MIN_SCORE];
+        offset = copy(scoreBytes, scoreBytes.length, buffer, offset);
+        buffer[offset++] = '\n';
+        return offset;
+    }
+
+    private static int copy(byte[] source, int length, byte[] buffer, int offset) {
+        System.arraycopy(source, 0, buffer, offset, length);
+        return offset + length;
+    }
+
+    /**
+     * Writes the decimal digits of a non-negative value, without going through a string.
+     */
+    static int writeLong(long value, byte[] buffer, int offset) {
+        int end = offset + digits(value);
+        int position = end;
+        do {
+            buffer[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        return end;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+}
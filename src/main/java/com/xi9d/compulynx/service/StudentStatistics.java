@@ -0,0 +1,219 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-class aggregates of the students: count, score distribution and birth years. Scores are
+ * kept as exact counts per distinct score, so min/max/mean, percentiles and histograms are all
+ * derived from a few dozen counters per class, whatever the number of students. Aggregates
+ * can be merged, which lets ingest batches be added as they are written.
+ *
+ * Instances are thread safe.
+ */
+public class StudentStatistics {
+
+    /** Key of the students without a class in {@link #toMap}, JSON objects have no null keys. */
+    public static final String NO_CLASS = "(none)";
+
+    private static final int[] PERCENTILES = {25, 50, 75, 90, 99};
+    // Students without a class sort first
+    private static final Comparator<String> CLASS_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final Map<String, ClassStatistics> classes = new TreeMap<>(CLASS_ORDER);
+
+    /**
+     * Aggregates the rows of a columnar snapshot, one pass over the primitive columns.
+     */
+    public static StudentStatistics of(StudentColumns columns) {
+        StudentStatistics statistics = new StudentStatistics();
+        String[] classNames = columns.getClassDictionary();
+        ClassStatistics[] byCode = new ClassStatistics[classNames.length];
+        for (int code = 0; code < classNames.length; code++) {
+            byCode[code] = statistics.classes.computeIfAbsent(classNames[code], name -> new ClassStatistics());
+        }
+
+        // Birth years of the last epoch day seen, dates repeat a lot
+        int lastEpochDay = Integer.MIN_VALUE;
+        int lastYear = 0;
+        for (int row = 0; row < columns.size(); row++) {
+            int epochDay = columns.getDobEpochDay(row);
+            if (epochDay != lastEpochDay) {
+                lastEpochDay = epochDay;
+                lastYear = LocalDate.ofEpochDay(epochDay).getYear();
+            }
+            byCode[columns.getClassCode(row)].add(columns.getScore(row), lastYear, 1);
+        }
+        return statistics;
+    }
+
+    public synchronized void add(String className, Integer score, Integer birthYear, long count) {
+        classes.computeIfAbsent(className, name -> new ClassStatistics()).add(score, birthYear, count);
+    }
+
+    public synchronized void addAll(Collection<Student> students) {
+        for (Student student : students) {
+            add(student.getClassName(), student.getScore(),
+                    student.getDob() != null ? student.getDob().getYear() : null, 1);
+        }
+    }
+
+    public synchronized void merge(StudentStatistics other) {
+        Map<String, ClassStatistics> otherClasses;
+        synchronized (other) {
+            otherClasses = new TreeMap<>(CLASS_ORDER);
+            other.classes.forEach((name, stats) -> otherClasses.put(name, stats.copy()));
+        }
+        otherClasses.forEach((name, stats) ->
+                classes.computeIfAbsent(name, key -> new ClassStatistics()).merge(stats));
+    }
+
+    public synchronized boolean isEmpty() {
+        return classes.isEmpty();
+    }
+
+    /**
+     * Names of the classes, the students without a class left out since no filter selects them.
+     */
+    public synchronized List<String> getClassNames() {
+        List<String> names = new ArrayList<>(classes.keySet());
+        names.remove(null);
+        return names;
+    }
+
+    public synchronized long getTotalCount() {
+        return classes.values().stream().mapToLong(stats -> stats.count).sum();
+    }
+
+    /**
+     * Response body form: total count and, per class, the score summary, percentiles, a
+     * histogram of bucketWidth-wide score ranges and the count per birth year. Students
+     * without a class are listed under {@link #NO_CLASS}.
+     */
+    public synchronized Map<String, Object> toMap(int bucketWidth) {
+        Map<String, Object> classStats = new LinkedHashMap<>();
+        classes.forEach((name, stats) -> classStats.put(name != null ? name : NO_CLASS, stats.toMap(bucketWidth)));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("totalStudents", getTotalCount());
+        result.put("classCount", classes.size());
+        result.put("classes", classStats);
+        return result;
+    }
+
+    private static final class ClassStatistics {
+
+        private long count;
+        private long scoredCount;
+        private long scoreSum;
+        // Number of students per distinct score and per birth year; the counters are mutated in place
+        private final TreeMap<Integer, long[]> scoreCounts = new TreeMap<>();
+        private final TreeMap<Integer, long[]> birthYears = new TreeMap<>();
+
+        void add(Integer score, Integer birthYear, long students) {
+            count += students;
+            if (score != null) {
+                scoredCount += students;
+                scoreSum += (long) score * students;
+                scoreCounts.computeIfAbsent(score, key -> new long[1])[0] += students;
+            }
+            if (birthYear != null) {
+                birthYears.computeIfAbsent(birthYear, key -> new long[1])[0] += students;
+            }
+        }
+
+        void merge(ClassStatistics other) {
+            count += other.count;
+            scoredCount += other.scoredCount;
+            scoreSum += other.scoreSum;
+            other.scoreCounts.forEach((score, students) ->
+                    scoreCounts.computeIfAbsent(score, key -> new long[1])[0] += students[0]);
+            other.birthYears.forEach((year, students) ->
+                    birthYears.computeIfAbsent(year, key -> new long[1])[0] += students[0]);
+        }
+
+        ClassStatistics copy() {
+            ClassStatistics copy = new ClassStatistics();
+            copy.merge(this);
+            return copy;
+        }
+
+        Map<String, Object> toMap(int bucketWidth) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("count", count);
+            if (scoredCount > 0) {
+                result.put("minScore", scoreCounts.firstKey());
+                result.put("maxScore", scoreCounts.lastKey());
+                result.put("meanScore", Math.round(scoreSum * 100.0 / scoredCount) / 100.0);
+
+                Map<String, Integer> percentiles = new LinkedHashMap<>();
+                for (int percentile : PERCENTILES) {
+                    percentiles.put("p" + percentile, percentile(percentile));
+                }
+                result.put("percentiles", percentiles);
+                result.put("histogram", histogram(bucketWidth));
+            }
+
+            Map<Integer, Long> years = new LinkedHashMap<>();
+            birthYears.forEach((year, students) -> years.put(year, students[0]));
+            result.put("birthYears", years);
+            return result;
+        }
+
+        /**
+         * Nearest-rank percentile over the exact score counts.
+         */
+        private int percentile(int percentile) {
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * scoredCount));
+            long seen = 0;
+            for (Map.Entry<Integer, long[]> entry : scoreCounts.entrySet()) {
+                seen += entry.getValue()[0];
+                if (seen >= rank) {
+                    return entry.getKey();
+                }
+            }
+            return scoreCounts.lastKey();
+        }
+
+        /**
+         * Counts per score range [from, from + bucketWidth), empty ranges between two
+         * populated ones included.
+         */
+        private List<Map<String, Object>> histogram(int bucketWidth) {
+            Map<Long, long[]> counts = new TreeMap<>();
+            scoreCounts.forEach((score, students) ->
+                    counts.computeIfAbsent(Math.floorDiv((long) score, bucketWidth), key -> new long[1])[0] += students[0]);
+
+            List<Map<String, Object>> buckets = new ArrayList<>();
+            long firstBucket = Math.floorDiv((long) scoreCounts.firstKey(), bucketWidth);
+            long lastBucket = Math.floorDiv((long) scoreCounts.lastKey(), bucketWidth);
+            // Only fill the gaps when that keeps the response small
+            boolean dense = lastBucket - firstBucket < 1000;
+            for (Map.Entry<Long, long[]> entry : counts.entrySet()) {
+                long bucket = entry.getKey();
+                while (dense && firstBucket < bucket) {
+                    buckets.add(bucket(firstBucket++, bucketWidth, 0));
+                }
+                buckets.add(bucket(bucket, bucketWidth, entry.getValue()[0]));
+                firstBucket = bucket + 1;
+            }
+            return buckets;
+        }
+
+        private static Map<String, Object> bucket(long bucket, int bucketWidth, long students) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("from", bucket * bucketWidth);
+            result.put("to", bucket * bucketWidth + bucketWidth - 1);
+            result.put("count", students);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+import com.xi9d.compulynx.repository.StudentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Per-class statistics of the students table. The aggregate is built once with a single
+ * GROUP BY query and then kept current by the uploads: every batch an upload writes is added
+ * to a pending update, merged in when the upload completes. Reads never touch the table.
+ *
+ * A failed upload may have committed some of its batches, and an aggregate loaded while an
+ * upload was running may already contain some of them; in both cases the aggregate is
+ * dropped and rebuilt on the next read rather than guessed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StudentStatsService {
+
+    private final StudentRepository studentRepository;
+
+    private StudentStatistics statistics;
+    // Incremented when a load starts or is published and when the aggregate is dropped or an
+    // update finishes, so an update or a load can tell whether the aggregate changed under it
+    private long version;
+
+    /**
+     * Returns the aggregate, loading it first when needed. The GROUP BY runs outside the lock so
+     * uploads can begin and finish meanwhile; the result is only kept when nothing happened to
+     * the table's aggregate during the load, otherwise it is returned to this caller alone.
+     */
+    public StudentStatistics getStatistics() {
+        long loadVersion;
+        synchronized (this) {
+            if (statistics != null) {
+                return statistics;
+            }
+            loadVersion = ++version;
+        }
+
+        long start = System.nanoTime();
+        StudentStatistics loaded = new StudentStatistics();
+        for (Object[] row : studentRepository.countByClassScoreAndBirthYear()) {
+            loaded.add((String) row[0], (Integer) row[1],
+                    row[2] != null ? ((Number) row[2]).intValue() : null, ((Number) row[3]).longValue());
+        }
+        log.info("Loaded statistics of {} students in {} classes in {} ms", loaded.getTotalCount(),
+                loaded.getClassNames().size(), (System.nanoTime() - start) / 1_000_000);
+
+        synchronized (this) {
+            if (loadVersion == version) {
+                statistics = loaded;
+                // Updates begun during the load may have rows in it: they drop the aggregate
+                version++;
+                return loaded;
+            }
+            return statistics != null ? statistics : loaded;
+        }
+    }
+
+    /**
+     * Starts tracking the rows written by one upload.
+     */
+    public synchronized Update beginUpdate() {
+        return new Update(version);
+    }
+
+    public synchronized void invalidate() {
+        statistics = null;
+        version++;
+    }
+
+    private synchronized void finish(Update update, boolean completed) {
+        if (statistics != null && completed && update.version == version) {
+            statistics.merge(update.delta);
+        } else {
+            // Not loaded yet, or loaded while the upload was running: a load still in flight
+            // may have missed some of the rows, so it is not kept either
+            statistics = null;
+            version++;
+        }
+    }
+
+    /**
+     * Rows written by one upload, added batch by batch once they have been written. Batches
+     * may be recorded from several threads.
+     */
+    public final class Update {
+
+        private final long version;
+        private final StudentStatistics delta = new StudentStatistics();
+
+        private Update(long version) {
+            this.version = version;
+        }
+
+        public void record(List<Student> students) {
+            delta.addAll(students);
+        }
+
+        /**
+         * @param completed true when every batch was written and committed
+         */
+        public void finish(boolean completed) {
+            StudentStatsService.this.finish(this, completed);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for the students parsed during a CSV ingest. Rows are handed over in batches;
+ * an implementation may commit every batch on its own or only in {@link #finish()}.
+ * Closing a writer that has not been finished discards whatever has not been committed yet.
+ */
+public interface StudentWriter extends AutoCloseable {
+
+    /**
+     * Writes a batch and returns the number of its rows inserted or updated; rows the database
+     * skipped as duplicates are not counted. A writer that only commits in {@link #finish()}
+     * returns the rows it sent.
+     */
+    long write(List<Student> batch) throws IOException;
+
+    /**
+     * True when every batch is committed by the time {@link #write} returns, so an ingest can
+     * checkpoint after it.
+     */
+    default boolean commitsEachBatch() {
+        return false;
+    }
+
+    /**
+     * Commits any pending rows and returns the number of rows written by this writer.
+     */
+    long finish() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
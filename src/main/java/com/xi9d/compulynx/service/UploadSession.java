@@ -0,0 +1,50 @@
+package com.xi9d.compulynx.service;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * State of one chunked upload managed by {@link UploadSessionService}: how many bytes have
+ * arrived and, once the file is being ingested, how many of its records are committed.
+ */
+@Getter
+public class UploadSession {
+
+    private final String id;
+    private final String fileName;
+    /** Announced size of the file, or -1 if the client did not give one. */
+    private final long totalBytes;
+    private final Instant createdAt;
+    private final long receivedBytes;
+    private final long committedRecords;
+
+    UploadSession(String id, String fileName, long totalBytes, Instant createdAt, long receivedBytes,
+                  long committedRecords) {
+        this.id = id;
+        this.fileName = fileName;
+        this.totalBytes = totalBytes;
+        this.createdAt = createdAt;
+        this.receivedBytes = receivedBytes;
+        this.committedRecords = committedRecords;
+    }
+
+    /** True once the announced number of bytes has arrived, or always when none was announced. */
+    public boolean isComplete() {
+        return totalBytes < 0 || receivedBytes == totalBytes;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("uploadId", id);
+        map.put("fileName", fileName);
+        map.put("totalBytes", totalBytes >= 0 ? totalBytes : null);
+        map.put("offset", receivedBytes);
+        map.put("complete", isComplete());
+        map.put("committedRecords", committedRecords);
+        map.put("createdAt", createdAt.toString());
+        return map;
+    }
+}
@@ -0,0 +1,303 @@
+package com.xi9d.compulynx.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chunked, resumable uploads of files too large for a single multipart request. A client
+ * creates a session, appends the file chunk by chunk at the offset the server reports (after
+ * a dropped connection it asks for the offset and carries on from there), then completes the
+ * session to process or ingest the assembled file.
+ *
+ * Each session is a data file with the bytes received so far and a properties file with its
+ * metadata and the checkpoint of its ingest, both in app.upload.sessions.dir, so sessions and
+ * checkpoints survive a restart. A session is deleted once its file has been processed; after a
+ * failure it stays, and completing it again resumes the ingest. Sessions untouched for
+ * app.upload.sessions.retention-hours are removed.
+ */
+@Service
+@Slf4j
+public class UploadSessionService {
+
+    private static final String DATA_SUFFIX = ".part";
+    private static final String META_SUFFIX = ".properties";
+    private static final int COPY_BUFFER_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Duration retention;
+
+    // Sessions with an append or a completion in progress
+    private final Set<String> busy = ConcurrentHashMap.newKeySet();
+
+    public UploadSessionService(@Value("${app.upload.sessions.dir:}") String directory,
+                                @Value("${app.upload.sessions.max-bytes:10737418240}") long maxBytes,
+                                @Value("${app.upload.sessions.retention-hours:24}") long retentionHours) throws IOException {
+        this.directory = directory.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "student-uploads")
+                : Paths.get(directory);
+        this.maxBytes = maxBytes;
+        this.retention = Duration.ofHours(retentionHours);
+        Files.createDirectories(this.directory);
+    }
+
+    /**
+     * @param totalBytes size of the whole file, or null if the client does not know it yet
+     */
+    public UploadSession create(String fileName, Long totalBytes) throws IOException {
+        if (totalBytes != null && (totalBytes < 0 || totalBytes > maxBytes)) {
+            throw new IllegalArgumentException("totalBytes must be between 0 and " + maxBytes);
+        }
+        evictExpiredSessions();
+
+        String id = UUID.randomUUID().toString();
+        Properties meta = new Properties();
+        meta.setProperty("fileName", fileName != null ? fileName : "");
+        meta.setProperty("totalBytes", Long.toString(totalBytes != null ? totalBytes : -1));
+        meta.setProperty("createdAt", Instant.now().toString());
+        meta.setProperty("committedRecords", "0");
+        Files.createFile(dataFile(id));
+        writeMeta(id, meta);
+        log.info("Created upload session {} for {} ({} bytes)", id, fileName, totalBytes);
+        return toSession(id, meta);
+    }
+
+    public Optional<UploadSession> get(String id) throws IOException {
+        Properties meta = readMeta(id);
+        return meta != null ? Optional.of(toSession(id, meta)) : Optional.empty();
+    }
+
+    /**
+     * Appends a chunk, streamed to disk as it arrives. offset must be the number of bytes
+     * received so far; a chunk cut off by a dropped connection keeps the bytes that arrived.
+     *
+     * @throws IllegalStateException when the offset does not match, or another request is
+     *                               appending to or completing the session
+     * @throws IllegalArgumentException when the chunk goes past the announced size
+     */
+    public UploadSession append(String id, long offset, InputStream chunk) throws IOException {
+        UploadSession session = require(id);
+        if (!busy.add(id)) {
+            throw new IllegalStateException("Upload " + id + " is busy with another request");
+        }
+        try {
+            long limit = session.getTotalBytes() >= 0 ? session.getTotalBytes() : maxBytes;
+            try (FileChannel channel = FileChannel.open(dataFile(id), StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                if (offset != size) {
+                    throw new IllegalStateException("Upload " + id + " is at offset " + size + ", not " + offset);
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_BYTES);
+                long position = size;
+                int n;
+                while ((n = chunk.read(buffer.array(), 0, buffer.capacity())) >= 0) {
+                    if (position + n > limit) {
+                        channel.truncate(size);
+                        throw new IllegalArgumentException("Chunk goes past the " + limit + " bytes of upload " + id);
+                    }
+                    buffer.limit(n).position(0);
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                }
+            }
+            touch(id);
+            return require(id);
+        } finally {
+            busy.remove(id);
+        }
+    }
+
+    /**
+     * Reserves a complete session for processing and returns its data file; call
+     * {@link #finish} when done.
+     */
+    public Path beginCompletion(String id) throws IOException {
+        UploadSession session = require(id);
+        if (!session.isComplete()) {
+            throw new IllegalStateException("Upload " + id + " has " + session.getReceivedBytes() + " of "
+                    + session.getTotalBytes() + " bytes");
+        }
+        if (!busy.add(id)) {
+            throw new IllegalStateException("Upload " + id + " is busy with another request");
+        }
+        return dataFile(id);
+    }
+
+    /**
+     * Ends a completion: the session is deleted if its file was processed, otherwise kept so
+     * the completion can be retried.
+     */
+    public void finish(String id, boolean succeeded) throws IOException {
+        try {
+            if (succeeded) {
+                delete(id);
+            } else {
+                touch(id);
+            }
+        } finally {
+            busy.remove(id);
+        }
+    }
+
+    /**
+     * Checkpoint of the ingest of the session's file, kept in its metadata.
+     */
+    public IngestCheckpoint checkpoint(String id) throws IOException {
+        Properties saved = readMeta(id);
+        if (saved == null) {
+            throw new NoSuchFileException("Upload not found: " + id);
+        }
+        long committed = Long.parseLong(saved.getProperty("committedRecords", "0"));
+        long committing = Math.max(committed, Long.parseLong(saved.getProperty("committingRecords", "0")));
+        return new IngestCheckpoint() {
+            @Override
+            public long getCommittedRecords() {
+                return committed;
+            }
+
+            @Override
+            public long getCommittingRecords() {
+                return committing;
+            }
+
+            @Override
+            public void committing(long records) throws IOException {
+                update("committingRecords", records);
+            }
+
+            @Override
+            public void committed(long records) throws IOException {
+                update("committedRecords", records);
+            }
+
+            private void update(String property, long records) throws IOException {
+                Properties meta = readMeta(id);
+                if (meta != null) {
+                    meta.setProperty(property, Long.toString(records));
+                    writeMeta(id, meta);
+                }
+            }
+        };
+    }
+
+    private boolean delete(String id) throws IOException {
+        Path meta = metaFile(id);
+        if (!Files.exists(meta)) {
+            return false;
+        }
+        Files.deleteIfExists(meta);
+        Files.deleteIfExists(dataFile(id));
+        log.info("Deleted upload session {}", id);
+        return true;
+    }
+
+    /**
+     * Deletes a session and the bytes received.
+     *
+     * @return false if there is no such session
+     * @throws IllegalStateException while the session is being appended to or completed
+     */
+    public boolean cancel(String id) throws IOException {
+        if (!busy.add(id)) {
+            throw new IllegalStateException("Upload " + id + " is busy with another request");
+        }
+        try {
+            return delete(id);
+        } finally {
+            busy.remove(id);
+        }
+    }
+
+    private UploadSession require(String id) throws IOException {
+        return get(id).orElseThrow(() -> new NoSuchFileException("Upload not found: " + id));
+    }
+
+    private UploadSession toSession(String id, Properties meta) throws IOException {
+        return new UploadSession(id, meta.getProperty("fileName"),
+                Long.parseLong(meta.getProperty("totalBytes")),
+                Instant.parse(meta.getProperty("createdAt")),
+                Files.size(dataFile(id)),
+                Long.parseLong(meta.getProperty("committedRecords", "0")));
+    }
+
+    private Properties readMeta(String id) throws IOException {
+        try (Reader reader = Files.newBufferedReader(metaFile(id), StandardCharsets.UTF_8)) {
+            Properties meta = new Properties();
+            meta.load(reader);
+            return meta;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void writeMeta(String id, Properties meta) throws IOException {
+        // Written aside and moved into place, so a crash never leaves half a checkpoint
+        Path temp = directory.resolve(id + META_SUFFIX + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            meta.store(writer, null);
+        }
+        Files.move(temp, metaFile(id), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void touch(String id) throws IOException {
+        Files.setLastModifiedTime(metaFile(id), FileTime.from(Instant.now()));
+    }
+
+    private void evictExpiredSessions() throws IOException {
+        Instant cutoff = Instant.now().minus(retention);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + META_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String id = name.substring(0, name.length() - META_SUFFIX.length());
+                if (!busy.contains(id) && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    log.info("Removing upload session {}, untouched for {}", id, retention);
+                    delete(id);
+                }
+            }
+        }
+    }
+
+    private Path dataFile(String id) {
+        return directory.resolve(checkId(id) + DATA_SUFFIX);
+    }
+
+    private Path metaFile(String id) {
+        return directory.resolve(checkId(id) + META_SUFFIX);
+    }
+
+    /**
+     * Session ids come from the client; only UUIDs may become file names.
+     */
+    private static String checkId(String id) {
+        try {
+            return UUID.fromString(id).toString();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid upload id: " + id);
+        }
+    }
+}
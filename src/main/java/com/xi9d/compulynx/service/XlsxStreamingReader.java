@@ -0,0 +1,211 @@
+package com.xi9d.compulynx.service;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the first sheet of an .xlsx file straight from the sheet XML and the shared strings
+ * table, handing every row to a {@link RowHandler} as soon as it has been parsed. Only the
+ * current row is held in memory, whatever the size of the sheet.
+ *
+ * Date formatted numbers are rendered as ISO dates, other numbers are truncated to whole
+ * numbers, booleans become "true"/"false" and formula cells return the formula text.
+ */
+public class XlsxStreamingReader {
+
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @param rowIndex zero based row index as stored in the sheet
+         * @param values   cell values by column index, missing cells are empty strings
+         */
+        void handleRow(int rowIndex, String[] values) throws IOException;
+    }
+
+    private XlsxStreamingReader() {
+    }
+
+    public static void read(Path xlsxFile, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(xlsxFile.toFile(), PackageAccess.READ)) {
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            StylesTable styles = xssfReader.getStylesTable();
+
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IOException("Workbook does not contain any sheet");
+            }
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new SheetHandler(sharedStrings, styles, handler));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Unable to read Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    private static class SheetHandler extends DefaultHandler {
+
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final RowHandler handler;
+
+        private final List<String> rowValues = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+        private int rowIndex = -1;
+        private int columnIndex;
+
+        private String cellType;
+        private String cellStyle;
+        private String cellValue;
+        private String cellFormula;
+        private boolean collectText;
+
+        SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, RowHandler handler) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    String rowRef = attributes.getValue("r");
+                    rowIndex = rowRef != null ? Integer.parseInt(rowRef) - 1 : rowIndex + 1;
+                    rowValues.clear();
+                    columnIndex = -1;
+                    break;
+                case "c":
+                    String cellRef = attributes.getValue("r");
+                    columnIndex = cellRef != null ? columnIndexOf(cellRef) : columnIndex + 1;
+                    cellType = attributes.getValue("t");
+                    cellStyle = attributes.getValue("s");
+                    cellValue = null;
+                    cellFormula = null;
+                    break;
+                case "v":
+                case "f":
+                case "t":
+                    text.setLength(0);
+                    collectText = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collectText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                    cellValue = text.toString();
+                    collectText = false;
+                    break;
+                case "f":
+                    cellFormula = text.toString();
+                    collectText = false;
+                    break;
+                case "t":
+                    // Inline strings may be split over several runs
+                    cellValue = cellValue == null ? text.toString() : cellValue + text;
+                    collectText = false;
+                    break;
+                case "c":
+                    while (rowValues.size() < columnIndex) {
+                        rowValues.add("");
+                    }
+                    rowValues.add(formatCell());
+                    break;
+                case "row":
+                    try {
+                        handler.handleRow(rowIndex, rowValues.toArray(new String[0]));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private String formatCell() {
+            if (cellFormula != null) {
+                return cellFormula;
+            }
+            if (cellValue == null) {
+                return "";
+            }
+            if (cellType == null || "n".equals(cellType)) {
+                return formatNumber(Double.parseDouble(cellValue));
+            }
+            switch (cellType) {
+                case "s":
+                    return sharedStrings.getItemAt(Integer.parseInt(cellValue)).getString();
+                case "b":
+                    return String.valueOf("1".equals(cellValue));
+                case "e":
+                    return "";
+                default:
+                    // inlineStr and str (cached formula string result)
+                    return cellValue;
+            }
+        }
+
+        private String formatNumber(double value) {
+            if (cellStyle != null && styles != null) {
+                XSSFCellStyle style = styles.getStyleAt(Integer.parseInt(cellStyle));
+                if (style != null
+                        && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString())
+                        && DateUtil.isValidExcelDate(value)) {
+                    return DateUtil.getLocalDateTime(value).toLocalDate().toString();
+                }
+            }
+            return String.valueOf((long) value);
+        }
+
+        private static int columnIndexOf(String cellRef) {
+            int column = 0;
+            for (int i = 0; i < cellRef.length(); i++) {
+                char c = cellRef.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                column = column * 26 + (c - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+}
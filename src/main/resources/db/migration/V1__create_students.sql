@@ -0,0 +1,11 @@
+-- Students table as previously created by Hibernate (ddl-auto=update) from the Student entity.
+-- Existing databases already have it and are baselined at this version.
+CREATE TABLE IF NOT EXISTS students (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    student_id BIGINT UNIQUE,
+    first_name VARCHAR(255),
+    last_name  VARCHAR(255),
+    dob        DATE,
+    class_name VARCHAR(255),
+    score      INTEGER
+);
@@ -0,0 +1,6 @@
+-- Serves the class filter of the student list, ordered and paged (offset or keyset) by
+-- student_id, the per-class export query and COUNT(*) by class as an index-only scan.
+-- Lookups and ordering by student_id alone use the unique index on student_id.
+CREATE INDEX IF NOT EXISTS idx_students_class_name_student_id ON students (class_name, student_id);
+
+ANALYZE students;
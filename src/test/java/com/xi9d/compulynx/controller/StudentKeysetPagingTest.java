@@ -0,0 +1,148 @@
+package com.xi9d.compulynx.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xi9d.compulynx.entity.Student;
+import com.xi9d.compulynx.repository.StudentRepository;
+import com.xi9d.compulynx.service.StudentPageCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset paging of GET /api/data/students over rows inserted by the test, which rolls them
+ * back afterwards. The studentIds sit far above generated data, so the unfiltered query can
+ * start just below them; the result cache is off so every page is read from the database.
+ */
+@SpringBootTest(properties = "app.cache.enabled=false")
+@AutoConfigureMockMvc
+@Transactional
+class StudentKeysetPagingTest {
+
+    private static final long BASE_ID = 9_100_000_000_000_000_000L;
+    private static final String CLASS_A = "KeysetTestA";
+    private static final String CLASS_B = "KeysetTestB";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void insertStudents() {
+        // Ids 1 to 7 in class A, 8 to 13 in class B; saved out of order
+        List<Student> students = new ArrayList<>();
+        for (int i = 13; i >= 1; i--) {
+            students.add(new Student(BASE_ID + i, "First" + i, "Last" + i, LocalDate.of(2005, 1, i),
+                    i <= 7 ? CLASS_A : CLASS_B, 60 + i));
+        }
+        studentRepository.saveAllAndFlush(students);
+    }
+
+    @Test
+    void walksAClassInPagesUpToAShortLastPage() throws Exception {
+        List<List<Long>> pages = walk(null, CLASS_A, "", 3);
+
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(4L, 5L, 6L), List.of(7L)), pages);
+    }
+
+    @Test
+    void lastFullPageEndsTheWalkWithoutAnEmptyPage() throws Exception {
+        List<List<Long>> pages = walk(null, CLASS_B, "", 3);
+
+        assertEquals(List.of(List.of(8L, 9L, 10L), List.of(11L, 12L, 13L)), pages);
+    }
+
+    @Test
+    void unfilteredPagesRunAcrossClasses() throws Exception {
+        List<List<Long>> pages = walk(null, null, StudentPageCursor.encode(BASE_ID), 5);
+
+        assertEquals(List.of(List.of(1L, 2L, 3L, 4L, 5L), List.of(6L, 7L, 8L, 9L, 10L), List.of(11L, 12L, 13L)),
+                pages);
+    }
+
+    @Test
+    void studentIdFilterYieldsOneRowOrNone() throws Exception {
+        long studentId = BASE_ID + 9;
+
+        assertEquals(List.of(List.of(9L)), walk(studentId, null, "", 3));
+        assertEquals(List.of(List.of(9L)), walk(studentId, CLASS_B, "", 3));
+        assertEquals(List.of(List.of()), walk(studentId, CLASS_A, "", 3));
+        // A cursor at or past the student leaves nothing to return
+        assertEquals(List.of(List.of()), walk(studentId, null, StudentPageCursor.encode(studentId), 3));
+    }
+
+    @Test
+    void countsTheFilteredRowsWhenAsked() throws Exception {
+        JsonNode page = page(request(null, CLASS_A, "", 3).param("count", "exact"));
+
+        assertEquals(7, page.get("totalElements").asLong());
+        assertEquals(3, page.get("totalPages").asLong());
+        assertTrue(page.get("first").asBoolean());
+        assertFalse(page.get("last").asBoolean());
+    }
+
+    @Test
+    void rejectsAnInvalidCursor() throws Exception {
+        mockMvc.perform(request(null, null, "bogus!", 3)).andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Follows nextCursor from the given cursor until the last page and returns the studentIds
+     * of every page, relative to BASE_ID.
+     */
+    private List<List<Long>> walk(Long studentId, String className, String cursor, int size) throws Exception {
+        List<List<Long>> pages = new ArrayList<>();
+        String next = cursor;
+        while (next != null) {
+            JsonNode page = page(request(studentId, className, next, size));
+            List<Long> ids = new ArrayList<>();
+            page.get("content").forEach(student -> ids.add(student.get("studentId").asLong() - BASE_ID));
+            pages.add(ids);
+
+            assertEquals(next.isEmpty(), page.get("first").asBoolean());
+            assertTrue(ids.size() <= size);
+            JsonNode nextCursor = page.get("nextCursor");
+            next = nextCursor == null || nextCursor.isNull() ? null : nextCursor.asText();
+            assertEquals(next == null, page.get("last").asBoolean());
+        }
+        return pages;
+    }
+
+    private static MockHttpServletRequestBuilder request(Long studentId, String className, String cursor, int size) {
+        MockHttpServletRequestBuilder request = get("/api/data/students")
+                .param("cursor", cursor)
+                .param("size", Integer.toString(size));
+        if (studentId != null) {
+            request.param("studentId", Long.toString(studentId));
+        }
+        if (className != null) {
+            request.param("className", className);
+        }
+        return request;
+    }
+
+    private JsonNode page(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
@@ -0,0 +1,105 @@
+package com.xi9d.compulynx.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompressionCodecTest {
+
+    private static final byte[] CSV = ("studentId,firstName,lastName,DOB,class,score\n"
+            + "1,Ann,Lee,2005-01-01,Class1,70\n".repeat(5000)).getBytes(StandardCharsets.UTF_8);
+
+    @ParameterizedTest
+    @EnumSource(CompressionCodec.class)
+    void roundTripsAndDetectsEveryCodec(CompressionCodec codec) throws IOException {
+        byte[] encoded = encode(codec, CSV);
+
+        assertEquals(codec, CompressionCodec.detect(encoded, encoded.length));
+        try (InputStream decoded = CompressionCodec.decode(new ByteArrayInputStream(encoded))) {
+            assertArrayEquals(CSV, decoded.readAllBytes());
+        }
+        try (InputStream decoded = codec.decoder(new ByteArrayInputStream(encoded))) {
+            assertArrayEquals(CSV, decoded.readAllBytes());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(CompressionCodec.class)
+    void roundTripsAnEmptyStream(CompressionCodec codec) throws IOException {
+        byte[] encoded = encode(codec, new byte[0]);
+
+        try (InputStream decoded = CompressionCodec.decode(new ByteArrayInputStream(encoded))) {
+            assertEquals(0, decoded.readAllBytes().length);
+        }
+    }
+
+    @Test
+    void detectNeedsTheWholeMagicNumber() {
+        byte[] gzip = {0x1f, (byte) 0x8b, 8, 0};
+        byte[] zstd = {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd};
+
+        assertEquals(CompressionCodec.GZIP, CompressionCodec.detect(gzip, 2));
+        assertEquals(CompressionCodec.NONE, CompressionCodec.detect(gzip, 1));
+        assertEquals(CompressionCodec.ZSTD, CompressionCodec.detect(zstd, 4));
+        assertEquals(CompressionCodec.NONE, CompressionCodec.detect(zstd, 3));
+        assertEquals(CompressionCodec.NONE, CompressionCodec.detect("stud".getBytes(StandardCharsets.US_ASCII), 4));
+        assertEquals(CompressionCodec.NONE, CompressionCodec.detect(new byte[0], 0));
+    }
+
+    @Test
+    void acceptEncodingPrefersZstdThenGzip() {
+        assertEquals(CompressionCodec.NONE, CompressionCodec.fromAcceptEncoding(null));
+        assertEquals(CompressionCodec.NONE, CompressionCodec.fromAcceptEncoding(""));
+        assertEquals(CompressionCodec.NONE, CompressionCodec.fromAcceptEncoding("identity, br"));
+        assertEquals(CompressionCodec.GZIP, CompressionCodec.fromAcceptEncoding("gzip, deflate, br"));
+        assertEquals(CompressionCodec.GZIP, CompressionCodec.fromAcceptEncoding("X-GZIP"));
+        assertEquals(CompressionCodec.ZSTD, CompressionCodec.fromAcceptEncoding("gzip, deflate, br, zstd"));
+        assertEquals(CompressionCodec.ZSTD, CompressionCodec.fromAcceptEncoding(" Zstd ;q=0.5, gzip;q=1.0"));
+    }
+
+    @Test
+    void acceptEncodingHonoursQValues() {
+        assertEquals(CompressionCodec.GZIP, CompressionCodec.fromAcceptEncoding("zstd;q=0, gzip"));
+        assertEquals(CompressionCodec.GZIP, CompressionCodec.fromAcceptEncoding("zstd; q=0.0, gzip;q=0.001"));
+        assertEquals(CompressionCodec.NONE, CompressionCodec.fromAcceptEncoding("gzip;q=0, zstd;q=0"));
+        // An unreadable weight refuses the coding
+        assertEquals(CompressionCodec.NONE, CompressionCodec.fromAcceptEncoding("gzip;q=high"));
+        assertEquals(CompressionCodec.ZSTD, CompressionCodec.fromAcceptEncoding("zstd;level=1"));
+    }
+
+    @Test
+    void wildcardGrantsGzipUnlessGzipIsNamed() {
+        assertEquals(CompressionCodec.GZIP, CompressionCodec.fromAcceptEncoding("*"));
+        assertEquals(CompressionCodec.NONE, CompressionCodec.fromAcceptEncoding("*;q=0"));
+        assertEquals(CompressionCodec.NONE, CompressionCodec.fromAcceptEncoding("gzip;q=0, *"));
+        assertEquals(CompressionCodec.GZIP, CompressionCodec.fromAcceptEncoding("gzip, *;q=0"));
+    }
+
+    @Test
+    void fromParamAcceptsNamesAndSuffixes() {
+        assertEquals(CompressionCodec.NONE, CompressionCodec.fromParam(null));
+        assertEquals(CompressionCodec.NONE, CompressionCodec.fromParam(" "));
+        assertEquals(CompressionCodec.GZIP, CompressionCodec.fromParam("GZ"));
+        assertEquals(CompressionCodec.ZSTD, CompressionCodec.fromParam(" zst "));
+        assertThrows(IllegalArgumentException.class, () -> CompressionCodec.fromParam("br"));
+    }
+
+    private static byte[] encode(CompressionCodec codec, byte[] data) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (OutputStream outputStream = codec.encoder(encoded)) {
+            outputStream.write(data);
+        }
+        return encoded.toByteArray();
+    }
+}
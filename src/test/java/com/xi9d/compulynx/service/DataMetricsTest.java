@@ -0,0 +1,150 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final DataMetrics metrics = new DataMetrics(registry);
+
+    @Test
+    void operationRecordsDurationRowsAndThroughputByOperationAndVariant() {
+        try (DataMetrics.Operation operation = metrics.start("ingest", "BATCH")) {
+            JobProgress progress = operation.track(JobProgress.NONE);
+            progress.advance(60);
+            progress.advance(40);
+            operation.succeeded();
+        }
+        try (DataMetrics.Operation operation = metrics.start("ingest", "COPY")) {
+            operation.track(JobProgress.NONE).advance(5);
+        }
+
+        Timer succeeded = registry.get("students.operation")
+                .tags("operation", "ingest", "variant", "batch", "outcome", "success").timer();
+        assertEquals(1, succeeded.count());
+        assertEquals(1, registry.get("students.operation")
+                .tags("operation", "ingest", "variant", "copy", "outcome", "failure").timer().count());
+        assertEquals(100, registry.get("students.operation.rows")
+                .tags("operation", "ingest", "variant", "batch").counter().count());
+        assertEquals(5, registry.get("students.operation.rows")
+                .tags("operation", "ingest", "variant", "copy").counter().count());
+
+        assertTrue(registry.get("students.operation.throughput")
+                .tags("operation", "ingest", "variant", "batch").gauge().value() > 0);
+        // Only completed runs set the throughput
+        assertNull(registry.find("students.operation.throughput").tags("variant", "copy").gauge());
+    }
+
+    @Test
+    void timedWriterRecordsEveryBatchAndPassesItsCountOn() throws Exception {
+        StudentWriter writer = metrics.timeBatches(new StudentWriter() {
+            @Override
+            public long write(List<Student> batch) {
+                return batch.size() - 1;
+            }
+
+            @Override
+            public boolean commitsEachBatch() {
+                return true;
+            }
+
+            @Override
+            public long finish() {
+                return 0;
+            }
+
+            @Override
+            public void close() {
+            }
+        }, "COPY");
+
+        List<Student> batch = List.of(new Student(1L, "Ann", "Lee", LocalDate.of(2005, 1, 1), "Class1", 70),
+                new Student(2L, "Bob", "Kim", LocalDate.of(2005, 1, 2), "Class2", 80));
+        assertEquals(1, writer.write(batch));
+        writer.write(batch);
+
+        assertTrue(writer.commitsEachBatch());
+        assertEquals(2, registry.get("students.ingest.batch.flush").tag("engine", "copy").timer().count());
+    }
+
+    @Test
+    void parseErrorsAreCountedByEngineAndType() {
+        metrics.parseError("BATCH", new NumberFormatException("x"));
+        metrics.parseError("BATCH", new DateTimeParseException("x", "2020-13-01", 5));
+        metrics.parseError("BATCH", new IllegalArgumentException("x"));
+        metrics.parseError("PIPELINED", "columns");
+        metrics.parseError("PIPELINED", "columns");
+
+        for (String type : List.of("number", "date", "other")) {
+            assertEquals(1, registry.get("students.ingest.parse.errors")
+                    .tags("engine", "batch", "type", type).counter().count());
+        }
+        assertEquals(2, registry.get("students.ingest.parse.errors")
+                .tags("engine", "pipelined", "type", "columns").counter().count());
+    }
+
+    @Test
+    void exportsAreTimedAndSizedByFormatAndCacheOutcome() {
+        metrics.export("CSV", false, 1000, 2_000_000);
+        metrics.export("CSV", true, 1000, 100_000);
+        metrics.export("CSV", true, 1000, 100_000);
+
+        assertEquals(1, registry.get("students.export").tags("format", "csv", "cache", "miss").timer().count());
+        assertEquals(2, registry.get("students.export").tags("format", "csv", "cache", "hit").timer().count());
+        DistributionSummary bytes = registry.get("students.export.bytes")
+                .tags("format", "csv", "cache", "hit").summary();
+        assertEquals(2000, bytes.totalAmount());
+    }
+
+    @Test
+    void queueDepthGaugesSumTheRunningIngestsAndSurviveGarbageCollection() {
+        Gauge lines = registry.get("students.ingest.pipeline.queue.depth").tag("queue", "lines").gauge();
+        Gauge students = registry.get("students.ingest.pipeline.queue.depth").tag("queue", "students").gauge();
+        assertEquals(0, lines.value());
+
+        PipelinedCsvIngestor first = ingestor(3, 1);
+        PipelinedCsvIngestor second = ingestor(4, 2);
+        metrics.pipelineStarted(first);
+        metrics.pipelineStarted(second);
+
+        // Gauges hold their state object weakly; the running set must outlive a collection
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        assertEquals(7, lines.value());
+        assertEquals(3, students.value());
+
+        metrics.pipelineFinished(first);
+        assertEquals(4, lines.value());
+        metrics.pipelineFinished(second);
+        assertEquals(0, students.value());
+    }
+
+    private static PipelinedCsvIngestor ingestor(int lineQueueDepth, int studentQueueDepth) {
+        return new PipelinedCsvIngestor(() -> null, 1, 1, 1, 1, null) {
+            @Override
+            public int getLineQueueDepth() {
+                return lineQueueDepth;
+            }
+
+            @Override
+            public int getStudentQueueDepth() {
+                return studentQueueDepth;
+            }
+        };
+    }
+}
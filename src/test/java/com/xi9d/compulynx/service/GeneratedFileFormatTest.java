@@ -0,0 +1,74 @@
+package com.xi9d.compulynx.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The CSV, gzip CSV and columnar outputs of generateStudentFile hold the same students for
+ * the same seed.
+ */
+@SpringBootTest
+class GeneratedFileFormatTest {
+
+    private static final long SEED = 11;
+
+    @Autowired
+    private DataService dataService;
+
+    private final List<Path> files = new ArrayList<>();
+
+    @AfterEach
+    void deleteFiles() throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @ParameterizedTest
+    // No rows, a short last group, and a last group of exactly GROUP_ROWS
+    @ValueSource(ints = {0, StudentColumnsFile.GROUP_ROWS + 5, 2 * StudentColumnsFile.GROUP_ROWS})
+    void formatsHoldTheSameStudents(int rows) throws IOException {
+        Path csv = generate(rows, GeneratedFileFormat.CSV);
+        Path gzip = generate(rows, GeneratedFileFormat.CSV_GZIP);
+        Path columnar = generate(rows, GeneratedFileFormat.COLUMNAR);
+
+        try (InputStream decoded = new GZIPInputStream(Files.newInputStream(gzip))) {
+            assertArrayEquals(Files.readAllBytes(csv), decoded.readAllBytes());
+        }
+
+        StudentColumns scanned = StudentCsvScanner.scan(csv);
+        StudentColumns read = StudentColumnsFile.read(columnar);
+        assertEquals(rows, scanned.size());
+        assertEquals(rows, read.size());
+        for (int row = 0; row < rows; row++) {
+            assertEquals(scanned.toStudent(row), read.toStudent(row), "row " + row);
+        }
+
+        // Every group is followed by the next one's row count, the last by 0
+        byte[] bytes = Files.readAllBytes(columnar);
+        assertEquals(0, ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt());
+    }
+
+    private Path generate(int rows, GeneratedFileFormat format) throws IOException {
+        Path file = Paths.get(dataService.getFilePath(
+                dataService.generateStudentFile(rows, format, 1, SEED, JobProgress.NONE)));
+        files.add(file);
+        return file;
+    }
+}
@@ -0,0 +1,160 @@
+package com.xi9d.compulynx.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Resuming a CSV ingest after an attempt that stopped between committing a batch and
+ * checkpointing it. The rows sit far above generated data and are deleted afterwards, since
+ * the writers commit on their own connections.
+ */
+@SpringBootTest(properties = {"app.ingest.batch-size=3", "app.cache.enabled=false"})
+class IngestResumeTest {
+
+    private static final long BASE_ID = 9_200_000_000_000_000_000L;
+
+    @Autowired
+    private DataService dataService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
+    private Path csv;
+
+    @BeforeEach
+    void writeCsv() throws IOException {
+        // Records 1 to 8 are students, record 9 is rejected
+        StringBuilder content = new StringBuilder("studentId,firstName,lastName,DOB,class,score\n");
+        for (int i = 1; i <= 8; i++) {
+            content.append(BASE_ID + i).append(",First").append(i).append(",Last").append(i)
+                    .append(",2005-01-0").append(i).append(",ResumeTest,").append(60 + i).append('\n');
+        }
+        content.append("not-a-number,First,Last,2005-01-01,ResumeTest,60\n");
+        csv = directory.resolve("students.csv");
+        Files.writeString(csv, content);
+    }
+
+    @AfterEach
+    void deleteStudents() {
+        jdbcTemplate.update("DELETE FROM students WHERE student_id > ?", BASE_ID);
+    }
+
+    @Test
+    void batchCommittedWithoutCheckpointIsNotWrittenAgain() throws IOException {
+        // The earlier attempt committed records 1-3 and 4-6 but only checkpointed the first batch
+        insert(1, 6);
+        TestCheckpoint checkpoint = new TestCheckpoint(3, 6);
+        AtomicLong advanced = new AtomicLong();
+
+        dataService.uploadCsvToDatabase(csv, IngestEngine.BATCH, DuplicatePolicy.FAIL, checkpoint, progress(advanced));
+
+        assertEquals(8, count());
+        assertEquals(9, checkpoint.committed);
+        // Records 4 to 9, the rejected one and the batch found committed included
+        assertEquals(6, advanced.get());
+    }
+
+    @Test
+    void writerCommittingAtTheEndSkipsEverythingTheEarlierAttemptCommitted() throws IOException {
+        insert(1, 8);
+        TestCheckpoint checkpoint = new TestCheckpoint(0, 9);
+
+        dataService.uploadCsvToDatabase(csv, IngestEngine.COPY, DuplicatePolicy.FAIL, checkpoint, JobProgress.NONE);
+
+        assertEquals(8, count());
+        assertEquals(9, checkpoint.committed);
+    }
+
+    @Test
+    void realDuplicatesInTheUncheckpointedBatchAreStillRejected() {
+        // Record 5 is already in the table, but 4 and 6 are not: the batch was never committed
+        insert(1, 3);
+        insert(5, 5);
+        TestCheckpoint checkpoint = new TestCheckpoint(3, 6);
+
+        assertThrows(Exception.class, () -> dataService.uploadCsvToDatabase(csv, IngestEngine.BATCH,
+                DuplicatePolicy.FAIL, checkpoint, JobProgress.NONE));
+        assertEquals(4, count());
+        assertEquals(3, checkpoint.committed);
+    }
+
+    private void insert(int from, int to) {
+        for (int i = from; i <= to; i++) {
+            jdbcTemplate.update("INSERT INTO students (student_id, first_name, last_name, dob, class_name, score) "
+                    + "VALUES (?, 'First', 'Last', DATE '2005-01-01', 'ResumeTest', 65)", BASE_ID + i);
+        }
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM students WHERE student_id > ?", Long.class, BASE_ID);
+    }
+
+    private static JobProgress progress(AtomicLong advanced) {
+        return new JobProgress() {
+            @Override
+            public void setTotalRows(long totalRows) {
+            }
+
+            @Override
+            public void advance(long rows) {
+                advanced.addAndGet(rows);
+            }
+
+            @Override
+            public InputStream trackInput(InputStream inputStream, long totalBytes) {
+                return inputStream;
+            }
+
+            @Override
+            public void checkCancelled() {
+            }
+        };
+    }
+
+    private static final class TestCheckpoint implements IngestCheckpoint {
+
+        private final long committing;
+        private long committed;
+
+        TestCheckpoint(long committed, long committing) {
+            this.committed = committed;
+            this.committing = committing;
+        }
+
+        @Override
+        public long getCommittedRecords() {
+            return committed;
+        }
+
+        @Override
+        public long getCommittingRecords() {
+            return committing;
+        }
+
+        @Override
+        public void committing(long records) {
+        }
+
+        @Override
+        public void committed(long records) {
+            committed = records;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.xi9d.compulynx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntryOnceFull() {
+        LruCache<String> cache = new LruCache<>(Long.MAX_VALUE, 3, value -> 1);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        // Reading a makes b the least recently used entry
+        assertEquals("A", cache.get("a"));
+
+        cache.put("d", "D");
+
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals("D", cache.get("d"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void evictsByWeightAndSkipsValuesHeavierThanTheCache() {
+        LruCache<byte[]> cache = new LruCache<>(10, Integer.MAX_VALUE, blob -> blob.length);
+        cache.put("a", new byte[4]);
+        cache.put("b", new byte[4]);
+        cache.put("c", new byte[4]);
+
+        assertNull(cache.get("a"));
+        assertEquals(8L, cache.getStats().get("weight"));
+
+        cache.put("huge", new byte[11]);
+        assertNull(cache.get("huge"));
+        assertEquals(2, cache.getStats().get("entries"));
+
+        // Replacing a value swaps its weight rather than adding to it
+        cache.put("b", new byte[6]);
+        assertEquals(10L, cache.getStats().get("weight"));
+        assertEquals(6, cache.get("b").length);
+        assertEquals(4, cache.get("c").length);
+    }
+
+    @Test
+    void invalidateAllDropsEntriesAndWeightButKeepsCounters() {
+        LruCache<String> cache = new LruCache<>(100, 100, value -> value.length());
+        cache.put("a", "alpha");
+        cache.get("a");
+        cache.get("missing");
+
+        cache.invalidateAll();
+
+        assertNull(cache.get("a"));
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(0, stats.get("entries"));
+        assertEquals(0L, stats.get("weight"));
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(2L, stats.get("misses"));
+        assertEquals(1L, stats.get("puts"));
+    }
+}
@@ -0,0 +1,157 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PipelinedCsvIngestorTest {
+
+    @Test
+    void writesEveryParsedRecordOnceAndCountsTheRejectedOnes() throws IOException {
+        StringBuilder csv = new StringBuilder("studentId,firstName,lastName,DOB,class,score\n");
+        for (int i = 1; i <= 95; i++) {
+            csv.append(i).append(",First").append(i).append(",Last,2005-01-01,Class").append(i % 5).append(",70\n");
+        }
+        // A quoted line break, a bad id and a short record
+        csv.append("96,\"Ann\nMarie\",Lee,2005-01-01,Class1,80\n");
+        csv.append("x97,First,Last,2005-01-01,Class1,70\n");
+        csv.append("98,First,Last\n");
+        Map<Long, Student> written = new ConcurrentHashMap<>();
+        AtomicLong advanced = new AtomicLong();
+        AtomicLong listened = new AtomicLong();
+
+        PipelinedCsvIngestor ingestor = new PipelinedCsvIngestor(() -> writer(batch -> {
+            batch.forEach(student -> assertNull(written.put(student.getStudentId(), student)));
+            return batch.size();
+        }), 2, 3, 2, 10, null);
+        long rows = ingestor.ingest(input(csv.toString()), progress(advanced),
+                batch -> listened.addAndGet(batch.size()));
+
+        assertEquals(96, rows);
+        assertEquals(96, written.size());
+        assertEquals("Ann\nMarie", written.get(96L).getFirstName());
+        assertEquals(75, written.get(1L).getScore());
+        assertEquals(98, ingestor.getLinesRead());
+        assertEquals(96, ingestor.getRecordsParsed());
+        assertEquals(2, ingestor.getParseErrors());
+        assertEquals(96, advanced.get());
+        assertEquals(96, listened.get());
+    }
+
+    @Test
+    void noBatchIsWrittenAfterAWriterFailureIsReported() throws InterruptedException {
+        StringBuilder csv = new StringBuilder("studentId,firstName,lastName,DOB,class,score\n");
+        for (int i = 1; i <= 400; i++) {
+            csv.append(i).append(",First,Last,2005-01-01,Class1,70\n");
+        }
+        AtomicInteger started = new AtomicInteger();
+        List<List<Student>> committed = Collections.synchronizedList(new ArrayList<>());
+        List<List<Student>> listened = Collections.synchronizedList(new ArrayList<>());
+
+        PipelinedCsvIngestor ingestor = new PipelinedCsvIngestor(() -> writer(batch -> {
+            // The second batch fails while the first is still being written
+            if (started.incrementAndGet() == 2) {
+                sleepUninterruptibly(50);
+                throw new IOException("disk full");
+            }
+            // Like a JDBC batch, the write runs to its end whatever the interrupts
+            sleepUninterruptibly(300);
+            committed.add(batch);
+            return batch.size();
+        }), 1, 2, 2, 10, null);
+
+        IOException e = assertThrows(IOException.class,
+                () -> ingestor.ingest(input(csv.toString()), JobProgress.NONE, listened::add));
+        int committedOnReturn = committed.size();
+        int listenedOnReturn = listened.size();
+        TimeUnit.MILLISECONDS.sleep(500);
+
+        assertTrue(e.getMessage().contains("disk full"), e.getMessage());
+        assertEquals(committedOnReturn, committed.size());
+        assertEquals(committedOnReturn, listenedOnReturn);
+        assertEquals(listenedOnReturn, listened.size());
+        assertTrue(committedOnReturn < 40, "the pipeline should stop early, wrote " + committedOnReturn);
+    }
+
+    @FunctionalInterface
+    private interface BatchWrite {
+        long write(List<Student> batch) throws IOException;
+    }
+
+    private static StudentWriter writer(BatchWrite write) {
+        return new StudentWriter() {
+            @Override
+            public long write(List<Student> batch) throws IOException {
+                return write.write(batch);
+            }
+
+            @Override
+            public long finish() {
+                return 0;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static InputStream input(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static JobProgress progress(AtomicLong advanced) {
+        return new JobProgress() {
+            @Override
+            public void setTotalRows(long totalRows) {
+            }
+
+            @Override
+            public void advance(long rows) {
+                advanced.addAndGet(rows);
+            }
+
+            @Override
+            public InputStream trackInput(InputStream inputStream, long totalBytes) {
+                return inputStream;
+            }
+
+            @Override
+            public void checkCancelled() {
+            }
+        };
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        boolean interrupted = false;
+        long remaining;
+        while ((remaining = end - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
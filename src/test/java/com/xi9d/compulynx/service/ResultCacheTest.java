@@ -0,0 +1,133 @@
+package com.xi9d.compulynx.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResultCacheTest {
+
+    @TempDir
+    Path diskDir;
+
+    @Test
+    void pagesAreServedFromTheCacheUntilTheVersionMoves() throws IOException {
+        ResultCache cache = new ResultCache(true, 10, 1024, 512, "", 0);
+        AtomicInteger loads = new AtomicInteger();
+
+        Map<String, Object> first = cache.getPage("page-0", () -> Map.of("load", loads.incrementAndGet()));
+        Map<String, Object> again = cache.getPage("page-0", () -> Map.of("load", loads.incrementAndGet()));
+        assertEquals(1, again.get("load"));
+        assertEquals(first, again);
+
+        long version = cache.getVersion();
+        cache.invalidate();
+        assertEquals(version + 1, cache.getVersion());
+        assertEquals(2, cache.getPage("page-0", () -> Map.of("load", loads.incrementAndGet())).get("load"));
+    }
+
+    @Test
+    void exportWrittenByteByByteIsCapturedAndServedFromTheHeap() throws IOException {
+        ResultCache cache = new ResultCache(true, 10, 1024, 512, "", 0);
+        AtomicInteger renders = new AtomicInteger();
+        byte[] content = bytes(300);
+        ResultCache.Renderer renderer = out -> {
+            renders.incrementAndGet();
+            for (int i = 0; i < 100; i++) {
+                out.write(content[i]);
+            }
+            out.write(content, 100, 200);
+        };
+
+        assertArrayEquals(content, export(cache, "export", renderer));
+        assertArrayEquals(content, export(cache, "export", renderer));
+        assertEquals(1, renders.get());
+
+        cache.invalidate();
+        assertArrayEquals(content, export(cache, "export", renderer));
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    void failedRenderIsNotCached() throws IOException {
+        ResultCache cache = new ResultCache(true, 10, 1024, 512, "", 0);
+        assertThrows(IOException.class, () -> export(cache, "export", out -> {
+            out.write(bytes(10));
+            throw new IOException("client went away");
+        }));
+
+        byte[] content = bytes(20);
+        assertArrayEquals(content, export(cache, "export", out -> out.write(content)));
+    }
+
+    @Test
+    void largeExportSpillsToTheDiskTier() throws IOException {
+        ResultCache cache = new ResultCache(true, 10, 1024, 64, diskDir.toString(), 1 << 20);
+        AtomicInteger renders = new AtomicInteger();
+        byte[] content = bytes(10_000);
+        ResultCache.Renderer renderer = out -> {
+            renders.incrementAndGet();
+            for (int i = 0; i < content.length; i += 100) {
+                out.write(content, i, 100);
+            }
+        };
+
+        assertArrayEquals(content, export(cache, "export", renderer));
+        assertArrayEquals(content, export(cache, "export", renderer));
+        assertEquals(1, renders.get());
+        assertEquals(1, ((Map<?, ?>) cache.getStats().get("exportsDisk")).get("entries"));
+        try (Stream<Path> files = Files.list(diskDir)) {
+            assertEquals(0, files.filter(file -> file.getFileName().toString().endsWith(".tmp")).count());
+        }
+    }
+
+    @Test
+    void largeExportWithoutDiskTierIsNotCached() throws IOException {
+        ResultCache cache = new ResultCache(true, 10, 1024, 64, "", 0);
+        AtomicInteger renders = new AtomicInteger();
+        byte[] content = bytes(1000);
+        ResultCache.Renderer renderer = out -> {
+            renders.incrementAndGet();
+            out.write(content);
+        };
+
+        assertArrayEquals(content, export(cache, "export", renderer));
+        assertArrayEquals(content, export(cache, "export", renderer));
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    void disabledCacheRendersEveryTime() throws IOException {
+        ResultCache cache = new ResultCache(false, 10, 1024, 512, "", 0);
+        AtomicInteger loads = new AtomicInteger();
+        cache.getPage("page-0", () -> Map.of("load", loads.incrementAndGet()));
+        cache.getPage("page-0", () -> Map.of("load", loads.incrementAndGet()));
+        export(cache, "export", out -> loads.incrementAndGet());
+        export(cache, "export", out -> loads.incrementAndGet());
+        assertEquals(4, loads.get());
+    }
+
+    private static byte[] export(ResultCache cache, String query, ResultCache.Renderer renderer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.writeExport(query, out, renderer);
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        return bytes;
+    }
+}
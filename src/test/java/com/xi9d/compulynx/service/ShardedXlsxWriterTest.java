@@ -0,0 +1,112 @@
+package com.xi9d.compulynx.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedXlsxWriterTest {
+
+    private static final String[] HEADERS = {"studentId", "name"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mergedShardsReadBackInRowOrder() throws IOException {
+        Path target = dir.resolve("sharded.xlsx");
+
+        // 2503 rows over 4 shards leave a short last shard
+        writer().write(target, 2503, 4, JobProgress.NONE, firstRow -> (rowNumber, values) -> {
+            values[0] = Long.toString(rowNumber);
+            values[1] = "Name <" + rowNumber + "> & co";
+        });
+
+        List<Integer> indexes = new ArrayList<>();
+        List<String[]> rows = new ArrayList<>();
+        XlsxStreamingReader.read(target, (rowIndex, values) -> {
+            indexes.add(rowIndex);
+            rows.add(values);
+        });
+
+        assertEquals(2504, rows.size());
+        assertArrayEquals(HEADERS, rows.get(0));
+        for (int row = 1; row <= 2503; row++) {
+            assertEquals(row, indexes.get(row));
+            assertArrayEquals(new String[]{Integer.toString(row), "Name <" + row + "> & co"}, rows.get(row));
+        }
+    }
+
+    @Test
+    void failedShardStopsTheOthersBeforeTheCleanup() throws IOException {
+        Path target = dir.resolve("failed.xlsx");
+        List<Path> workDirsBefore = workDirs();
+        AtomicBoolean slowShardResumed = new AtomicBoolean();
+
+        IOException e = assertThrows(IOException.class, () -> writer().write(target, 30, 3, JobProgress.NONE,
+                firstRow -> {
+                    if (firstRow == 1) {
+                        return (rowNumber, values) -> {
+                            throw new IllegalStateException("bad row " + rowNumber);
+                        };
+                    }
+                    if (firstRow == 21) {
+                        // Goes on to open its shard file well after the failure
+                        sleepUninterruptibly(300);
+                        slowShardResumed.set(true);
+                    }
+                    return (rowNumber, values) -> {
+                        values[0] = Long.toString(rowNumber);
+                        values[1] = "Name";
+                    };
+                }));
+
+        assertTrue(e.getMessage().contains("bad row 1"), e.getMessage());
+        assertTrue(slowShardResumed.get());
+        assertFalse(Files.exists(target));
+        assertEquals(workDirsBefore, workDirs());
+    }
+
+    private static ShardedXlsxWriter writer() {
+        return new ShardedXlsxWriter("Students", HEADERS, new int[]{12, 20}, new boolean[]{true, false});
+    }
+
+    private static List<Path> workDirs() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("xlsx_shards_"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        boolean interrupted = false;
+        long remaining;
+        while ((remaining = end - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.xi9d.compulynx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentColumnsTest {
+
+    @Test
+    void buildSortsRowsByStudentIdAndKeepsTheirValues() {
+        List<Long> ids = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            ids.add(random.nextLong());
+        }
+        // Ids spread over every 16-bit digit, including negative ones and the extremes
+        ids.addAll(List.of(Long.MIN_VALUE, Long.MAX_VALUE, -1L, 0L, 1L, 65_535L, 65_536L));
+        Collections.shuffle(ids, random);
+
+        StudentColumns.Builder builder = new StudentColumns.Builder();
+        for (long id : ids) {
+            builder.add(id, "first" + id, "last" + id, (int) Math.floorMod(id, 20_000), "Class" + Math.floorMod(id, 5),
+                    (int) Math.floorMod(id, 100));
+        }
+        StudentColumns columns = builder.build();
+
+        List<Long> expected = new ArrayList<>(ids);
+        Collections.sort(expected);
+        assertEquals(expected.size(), columns.size());
+        for (int row = 0; row < columns.size(); row++) {
+            long id = expected.get(row);
+            assertEquals(id, columns.getStudentId(row));
+            assertEquals("first" + id, columns.getFirstName(row));
+            assertEquals("last" + id, columns.getLastName(row));
+            assertEquals(Math.floorMod(id, 20_000), columns.getDobEpochDay(row));
+            assertEquals("Class" + Math.floorMod(id, 5), columns.getClassName(row));
+            assertEquals(Math.floorMod(id, 100), columns.getScore(row));
+        }
+    }
+
+    @Test
+    void equalStudentIdsKeepTheirInsertionOrder() {
+        StudentColumns columns = new StudentColumns.Builder()
+                .add(7, "b", "x", LocalDate.of(2005, 1, 1), "Class1", 1)
+                .add(3, "a", "x", LocalDate.of(2005, 1, 1), "Class1", 1)
+                .add(7, "c", "x", LocalDate.of(2005, 1, 1), "Class2", 2)
+                .add(3, "d", "x", LocalDate.of(2005, 1, 1), "Class2", 2)
+                .build();
+
+        String[] firstNames = new String[columns.size()];
+        for (int row = 0; row < columns.size(); row++) {
+            firstNames[row] = columns.getFirstName(row);
+        }
+        assertArrayEquals(new String[]{"a", "d", "b", "c"}, firstNames);
+    }
+
+    @Test
+    void indexOfAndRowsByClassFollowTheSortedOrder() {
+        StudentColumns columns = new StudentColumns.Builder()
+                .add(30, "Cy", "Doe", LocalDate.of(2004, 2, 29), "Class2", 90)
+                .add(10, "Ann", "Lee", LocalDate.of(2005, 3, 17), "Class1", 70)
+                .add(20, "Bo", "Ng", LocalDate.of(2006, 4, 1), "Class2", 80)
+                .build();
+
+        assertEquals(0, columns.indexOf(10));
+        assertEquals(2, columns.indexOf(30));
+        assertTrue(columns.indexOf(15) < 0);
+        assertEquals(LocalDate.of(2004, 2, 29), columns.getDob(2));
+
+        String[] dictionary = columns.getClassDictionary();
+        int[][] rowsByClass = columns.rowsByClass();
+        for (int code = 0; code < dictionary.length; code++) {
+            int[] expected = dictionary[code].equals("Class1") ? new int[]{0} : new int[]{1, 2};
+            assertArrayEquals(expected, rowsByClass[code]);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.xi9d.compulynx.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StudentCsvScannerTest {
+
+    private static final String HEADER = "studentId,firstName,lastName,DOB,class,score\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsPlainAndQuotedFields() throws IOException {
+        StudentColumns students = scan(HEADER
+                + "2,Bo,Ng,2006-04-01,Class2,80\n"
+                + "1,\"Doe, Jr\", Lee ,2005-03-17,\"Class1\",70\n", Long.MAX_VALUE);
+
+        assertEquals(2, students.size());
+        assertStudent(students, 0, 1, "Doe, Jr", "Lee", LocalDate.of(2005, 3, 17), "Class1", 70);
+        assertStudent(students, 1, 2, "Bo", "Ng", LocalDate.of(2006, 4, 1), "Class2", 80);
+    }
+
+    @Test
+    void readsQuotedLineBreaksAndEscapedQuotesThroughOpenCsv() throws IOException {
+        StudentColumns students = scan(HEADER
+                + "1,\"Ann\nMarie\",Lee,2005-03-17,Class1,70\n"
+                + "2,\"Bo \"\"the\"\" Second\",Ng,2006-04-01,Class2,80\n"
+                + "3,Cy,Doe,2004-02-29,Class3,90\n", Long.MAX_VALUE);
+
+        assertEquals(3, students.size());
+        assertStudent(students, 0, 1, "Ann\nMarie", "Lee", LocalDate.of(2005, 3, 17), "Class1", 70);
+        assertStudent(students, 1, 2, "Bo \"the\" Second", "Ng", LocalDate.of(2006, 4, 1), "Class2", 80);
+        assertStudent(students, 2, 3, "Cy", "Doe", LocalDate.of(2004, 2, 29), "Class3", 90);
+    }
+
+    @Test
+    void readsCrlfLineEndingsAndAFinalLineWithoutBreak() throws IOException {
+        StudentColumns students = scan(HEADER.replace("\n", "\r\n")
+                + "1,Ann,Lee,2005-03-17,Class1,70\r\n"
+                + "\r\n"
+                + "2,Bo,Ng,2006-04-01,Class2,80", Long.MAX_VALUE);
+
+        assertEquals(2, students.size());
+        assertStudent(students, 0, 1, "Ann", "Lee", LocalDate.of(2005, 3, 17), "Class1", 70);
+        assertStudent(students, 1, 2, "Bo", "Ng", LocalDate.of(2006, 4, 1), "Class2", 80);
+    }
+
+    @Test
+    void rejectsRecordsThatDoNotParse() throws IOException {
+        StudentColumns students = scan(HEADER
+                + "1,Ann,Lee,2005-02-30,Class1,70\n"
+                + "x,Bo,Ng,2006-04-01,Class2,80\n"
+                + "3,Cy,Doe,2004-02-29,Class3\n"
+                + "4,Di,Fox,2003-01-01,Class4,60\n", Long.MAX_VALUE);
+
+        assertEquals(1, students.size());
+        assertStudent(students, 0, 4, "Di", "Fox", LocalDate.of(2003, 1, 1), "Class4", 60);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {48, 61, 97, 1 << 20})
+    void recordsSplitOverWindowsAreReadWhole(int window) throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 1; i <= 200; i++) {
+            csv.append(i).append(i % 7 == 0 ? ",\"Ann\r\nMarie\"," : ",Ann,").append("Lee,2005-03-17,Class")
+                    .append(i % 5).append(',').append(i % 100).append("\r\n");
+        }
+
+        for (CompressionCodec codec : CompressionCodec.values()) {
+            StudentColumns students = scan(write(csv.toString(), codec), window);
+            assertEquals(200, students.size(), codec + " with window " + window);
+            for (int row = 0; row < 200; row++) {
+                int id = row + 1;
+                assertStudent(students, row, id, id % 7 == 0 ? "Ann\r\nMarie" : "Ann", "Lee",
+                        LocalDate.of(2005, 3, 17), "Class" + id % 5, id % 100);
+            }
+        }
+    }
+
+    @Test
+    void recordLargerThanTheWindowFails() {
+        String csv = HEADER + "1,\"" + "A".repeat(100) + "\",Lee,2005-03-17,Class1,70\n";
+        assertThrows(IOException.class, () -> scan(csv, 48));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CompressionCodec.class)
+    void readsCompressedFiles(CompressionCodec codec) throws IOException {
+        Path file = write(HEADER + "1,\"Doe, Jr\",Lee,2005-03-17,Class1,70\n2,Bo,Ng,2006-04-01,Class2,80\n", codec);
+
+        assertEquals(codec, CompressionCodec.detect(file));
+        StudentColumns students = StudentCsvScanner.scan(file);
+        assertEquals(2, students.size());
+        assertStudent(students, 0, 1, "Doe, Jr", "Lee", LocalDate.of(2005, 3, 17), "Class1", 70);
+        assertStudent(students, 1, 2, "Bo", "Ng", LocalDate.of(2006, 4, 1), "Class2", 80);
+    }
+
+    private StudentColumns scan(String csv, long window) throws IOException {
+        return scan(write(csv, CompressionCodec.NONE), window);
+    }
+
+    private static StudentColumns scan(Path file, long window) throws IOException {
+        return new StudentCsvScanner(file, window).scan();
+    }
+
+    private Path write(String csv, CompressionCodec codec) throws IOException {
+        Path file = Files.createTempFile(dir, "students", ".csv" + codec.getFileSuffix());
+        try (OutputStream out = codec.encoder(Files.newOutputStream(file))) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    private static void assertStudent(StudentColumns students, int row, long studentId, String firstName,
+                                      String lastName, LocalDate dob, String className, int score) {
+        assertEquals(studentId, students.getStudentId(row));
+        assertEquals(firstName, students.getFirstName(row));
+        assertEquals(lastName, students.getLastName(row));
+        assertEquals(dob, students.getDob(row));
+        assertEquals(className, students.getClassName(row));
+        assertEquals(score, students.getScore(row));
+    }
+}
@@ -0,0 +1,91 @@
+package com.xi9d.compulynx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentIdSetTest {
+
+    // Ids of one page, seven apart so every page holds gaps to probe
+    private static final long PAGE_BASE = 5L << 16;
+
+    @Test
+    void pageKeepsItsIdsAcrossTheArrayToBitmapSwitch() {
+        StudentIdSet ids = new StudentIdSet();
+        for (int i = 0; i < 4096; i++) {
+            assertTrue(ids.add(PAGE_BASE + 7L * i));
+        }
+        assertEquals(4096, ids.size());
+        assertFalse(ids.add(PAGE_BASE + 7L * 4095));
+        long arrayBytes = ids.getMemoryBytes();
+
+        // The 4097th id turns the page into a bitmap
+        assertTrue(ids.add(PAGE_BASE + 7L * 4096));
+        assertEquals(4097, ids.size());
+        // A full array and a bitmap both take 8 KB
+        assertEquals(arrayBytes, ids.getMemoryBytes());
+
+        for (int i = 0; i <= 4096; i++) {
+            assertTrue(ids.contains(PAGE_BASE + 7L * i), "id " + i);
+            assertFalse(ids.contains(PAGE_BASE + 7L * i + 1));
+        }
+        assertFalse(ids.contains(PAGE_BASE + 7L * 4097));
+        assertFalse(ids.add(PAGE_BASE));
+        assertFalse(ids.add(PAGE_BASE + 7L * 4096));
+        assertEquals(4097, ids.size());
+
+        // Adding below the bitmap's lowest id still works
+        assertTrue(ids.add(PAGE_BASE + 3));
+        assertTrue(ids.contains(PAGE_BASE + 3));
+        assertEquals(4098, ids.size());
+    }
+
+    @Test
+    void idsAddedOutOfOrderStaySortedInTheArrayPage() {
+        StudentIdSet ids = new StudentIdSet();
+        for (long id : new long[] {PAGE_BASE + 900, PAGE_BASE + 5, PAGE_BASE + 65_535, PAGE_BASE, PAGE_BASE + 450}) {
+            assertTrue(ids.add(id));
+        }
+        assertEquals(5, ids.size());
+        assertTrue(ids.contains(PAGE_BASE));
+        assertTrue(ids.contains(PAGE_BASE + 450));
+        assertTrue(ids.contains(PAGE_BASE + 65_535));
+        assertFalse(ids.contains(PAGE_BASE + 451));
+        // Same low bits in the neighbouring pages
+        assertFalse(ids.contains(PAGE_BASE - 65_536 + 450));
+        assertFalse(ids.contains(PAGE_BASE + 65_536 + 450));
+    }
+
+    @Test
+    void matchesAHashSetOverManyPagesAndNegativeIds() {
+        StudentIdSet ids = new StudentIdSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            long id;
+            switch (i % 4) {
+                case 0 -> id = random.nextLong();
+                // Dense pages, turned into bitmaps
+                case 1 -> id = random.nextInt(3 << 16);
+                // A page that stays just below the switch
+                case 2 -> id = -(1L << 20) + random.nextInt(4000) * 16L;
+                default -> id = -random.nextInt(1_000_000);
+            }
+            assertEquals(expected.add(id), ids.add(id), "id " + id);
+        }
+        assertEquals(expected.size(), ids.size());
+        for (long id : expected) {
+            assertTrue(ids.contains(id));
+        }
+        for (int i = 0; i < 100_000; i++) {
+            long id = random.nextInt(4 << 16) - (2 << 16);
+            assertEquals(expected.contains(id), ids.contains(id), "id " + id);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.xi9d.compulynx.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentPageCursorTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 42, -7, Long.MIN_VALUE, Long.MAX_VALUE})
+    void decodesWhatItEncodes(long studentId) {
+        String cursor = StudentPageCursor.encode(studentId);
+
+        assertEquals(studentId, StudentPageCursor.decode(cursor));
+        // Safe to pass as a query parameter as is
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "not base64!", "MTIz", "czE6", "czE6YWJj", "czI6MTIz"})
+    void rejectsTokensItDidNotProduce(String cursor) {
+        // MTIz is "123" without the prefix, czE6 "s1:" without a value, czE6YWJj "s1:abc", czI6MTIz "s2:123"
+        assertThrows(IllegalArgumentException.class, () -> StudentPageCursor.decode(cursor));
+    }
+
+    @Test
+    void rejectsAnIdOutOfRange() {
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("s1:9223372036854775808".getBytes(StandardCharsets.US_ASCII));
+
+        assertThrows(IllegalArgumentException.class, () -> StudentPageCursor.decode(cursor));
+    }
+}
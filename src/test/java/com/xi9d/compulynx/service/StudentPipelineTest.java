@@ -0,0 +1,85 @@
+package com.xi9d.compulynx.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The pipeline from generated rows to the database against /generate-excel, /process-excel and
+ * /upload-csv in a row. Generated students take studentIds from 1, so the test works in a
+ * schema of its own, migrated by Flyway and emptied afterwards.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.schemas=pipeline_test",
+        "spring.datasource.hikari.connection-init-sql=SET search_path TO pipeline_test",
+        "app.cache.enabled=false"})
+class StudentPipelineTest {
+
+    private static final int ROWS = 2500;
+    private static final long SEED = 7;
+
+    @Autowired
+    private DataService dataService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Path> files = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        jdbcTemplate.execute("TRUNCATE TABLE students");
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void generatedPipelineWritesTheRowsAndCsvOfTheThreeStepChain() throws IOException {
+        Path excel = dataFile(dataService.generateExcelFile(ROWS, 1, SEED, JobProgress.NONE));
+        Path chainCsv = dataFile(dataService.processExcelToCsv(excel, JobProgress.NONE));
+        dataService.uploadCsvToDatabase(chainCsv, IngestEngine.BATCH, JobProgress.NONE);
+        List<Map<String, Object>> chainRows = students();
+        jdbcTemplate.execute("TRUNCATE TABLE students");
+
+        Map<String, Object> result = dataService.runPipeline(null, ROWS, SEED, IngestEngine.BATCH, true,
+                JobProgress.NONE);
+        Path pipelineCsv = dataFile((String) result.get("csvFileName"));
+
+        assertEquals((long) ROWS, result.get("rowsWritten"));
+        assertEquals(ROWS, chainRows.size());
+        assertEquals(chainRows, students());
+        assertArrayEquals(Files.readAllBytes(chainCsv), Files.readAllBytes(pipelineCsv));
+        assertEquals(List.of(), partialFiles());
+    }
+
+    private Path dataFile(String fileName) {
+        Path file = Paths.get(dataService.getFilePath(fileName));
+        files.add(file);
+        return file;
+    }
+
+    private List<Map<String, Object>> students() {
+        return jdbcTemplate.queryForList("SELECT student_id, first_name, last_name, dob, class_name, score "
+                + "FROM students ORDER BY student_id");
+    }
+
+    private List<Path> partialFiles() throws IOException {
+        try (var listing = Files.list(Paths.get(dataService.getFilePath("x")).getParent())) {
+            return listing.filter(file -> file.getFileName().toString().endsWith(".csv.tmp")).toList();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.xi9d.compulynx.service;
+
+import com.xi9d.compulynx.entity.Student;
+import com.xi9d.compulynx.repository.StudentRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StudentStatsServiceTest {
+
+    @Test
+    void studentsWithoutAClassAreCountedUnderTheSentinel() {
+        StudentStatistics statistics = new StudentStatistics();
+        statistics.add("Class2", 70, 2005, 3);
+        statistics.add(null, 60, 2004, 2);
+        statistics.addAll(List.of(new Student(1L, "Ann", "Lee", LocalDate.of(2003, 1, 1), null, 80)));
+
+        StudentStatistics merged = new StudentStatistics();
+        merged.add(null, 90, null, 1);
+        merged.merge(statistics);
+
+        assertEquals(List.of("Class2"), merged.getClassNames());
+        assertEquals(7, merged.getTotalCount());
+        Map<?, ?> classes = (Map<?, ?>) merged.toMap(10).get("classes");
+        assertEquals(List.of(StudentStatistics.NO_CLASS, "Class2"), new ArrayList<>(classes.keySet()));
+        assertEquals(4L, ((Map<?, ?>) classes.get(StudentStatistics.NO_CLASS)).get("count"));
+    }
+
+    @Test
+    void loadedAggregateIsKeptAndUpdatedByCompletedUploads() {
+        StudentRepository repository = mock(StudentRepository.class);
+        when(repository.countByClassScoreAndBirthYear()).thenReturn(rows("Class1", 5L));
+        StudentStatsService service = new StudentStatsService(repository);
+
+        StudentStatistics loaded = service.getStatistics();
+        StudentStatsService.Update update = service.beginUpdate();
+        update.record(List.of(student("Class1")));
+        update.finish(true);
+
+        assertSame(loaded, service.getStatistics());
+        assertEquals(6, loaded.getTotalCount());
+        verify(repository, times(1)).countByClassScoreAndBirthYear();
+    }
+
+    @Test
+    void loadOverlappingAnUploadIsNotKept() {
+        StudentRepository repository = mock(StudentRepository.class);
+        StudentStatsService service = new StudentStatsService(repository);
+        StudentStatsService.Update running = service.beginUpdate();
+        // The upload finishes while the GROUP BY runs, which may not have seen its last batch
+        when(repository.countByClassScoreAndBirthYear()).thenAnswer(invocation -> {
+            running.finish(true);
+            return rows("Class1", 5L);
+        });
+
+        StudentStatistics first = service.getStatistics();
+        assertEquals(5, first.getTotalCount());
+
+        when(repository.countByClassScoreAndBirthYear()).thenReturn(rows("Class1", 6L));
+        StudentStatistics second = service.getStatistics();
+        assertNotSame(first, second);
+        assertEquals(6, second.getTotalCount());
+        assertSame(second, service.getStatistics());
+    }
+
+    @Test
+    void uploadBegunDuringALoadDropsTheLoadedAggregate() {
+        StudentRepository repository = mock(StudentRepository.class);
+        StudentStatsService service = new StudentStatsService(repository);
+        StudentStatsService.Update[] begun = new StudentStatsService.Update[1];
+        when(repository.countByClassScoreAndBirthYear()).thenAnswer(invocation -> {
+            begun[0] = service.beginUpdate();
+            return rows("Class1", 5L);
+        });
+
+        StudentStatistics loaded = service.getStatistics();
+        begun[0].record(List.of(student("Class1")));
+        begun[0].finish(true);
+
+        when(repository.countByClassScoreAndBirthYear()).thenReturn(rows("Class1", 6L));
+        StudentStatistics reloaded = service.getStatistics();
+        assertNotSame(loaded, reloaded);
+        assertEquals(6, reloaded.getTotalCount());
+        assertEquals(5, loaded.getTotalCount());
+    }
+
+    private static List<Object[]> rows(String className, long count) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{className, 70, 2005, count});
+        return rows;
+    }
+
+    private static Student student(String className) {
+        return new Student(1L, "Ann", "Lee", LocalDate.of(2005, 1, 1), className, 70);
+    }
+}
@@ -0,0 +1,118 @@
+package com.xi9d.compulynx.service;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class XlsxStreamingReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsSharedStringsDatesNumbersAndBooleans() throws IOException {
+        // XSSFWorkbook stores strings in the shared strings table
+        Path file = write(new XSSFWorkbook(), "shared.xlsx");
+
+        List<String[]> rows = read(file);
+
+        assertEquals(3, rows.size());
+        assertArrayEquals(new String[]{"studentId", "firstName", "DOB", "class", "score"}, rows.get(0));
+        assertArrayEquals(new String[]{"1", "Ann", "2005-03-17", "Class1", "78"}, rows.get(1));
+        assertArrayEquals(new String[]{"2", "", "", "", "", "true"}, rows.get(2));
+    }
+
+    @Test
+    void readsInlineStrings() throws IOException {
+        // SXSSFWorkbook writes strings inline unless told to share them
+        Path file = write(new SXSSFWorkbook(), "inline.xlsx");
+
+        List<String[]> rows = read(file);
+
+        assertEquals(3, rows.size());
+        assertArrayEquals(new String[]{"studentId", "firstName", "DOB", "class", "score"}, rows.get(0));
+        assertArrayEquals(new String[]{"1", "Ann", "2005-03-17", "Class1", "78"}, rows.get(1));
+        assertArrayEquals(new String[]{"2", "", "", "", "", "true"}, rows.get(2));
+    }
+
+    @Test
+    void passesRowIndexesAsStored() throws IOException {
+        Path file = dir.resolve("sparse.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("header");
+            sheet.createRow(4).createCell(1).setCellValue("after a gap");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            }
+        }
+
+        List<Integer> indexes = new ArrayList<>();
+        List<String[]> rows = new ArrayList<>();
+        XlsxStreamingReader.read(file, (rowIndex, values) -> {
+            indexes.add(rowIndex);
+            rows.add(values);
+        });
+
+        assertEquals(List.of(0, 4), indexes);
+        assertArrayEquals(new String[]{"", "after a gap"}, rows.get(1));
+    }
+
+    private Path write(Workbook workbook, String name) throws IOException {
+        Path file = dir.resolve(name);
+        try (workbook) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+            Sheet sheet = workbook.createSheet("Students");
+            Row header = sheet.createRow(0);
+            String[] names = {"studentId", "firstName", "DOB", "class", "score"};
+            for (int i = 0; i < names.length; i++) {
+                header.createCell(i).setCellValue(names[i]);
+            }
+
+            Row student = sheet.createRow(1);
+            student.createCell(0).setCellValue(1);
+            student.createCell(1).setCellValue("Ann");
+            student.createCell(2).setCellValue(LocalDate.of(2005, 3, 17));
+            student.getCell(2).setCellStyle(dateStyle);
+            student.createCell(3).setCellValue("Class1");
+            student.createCell(4).setCellValue(78.9);
+
+            // Missing cells in between come back as empty strings
+            Row sparse = sheet.createRow(2);
+            sparse.createCell(0).setCellValue(2);
+            sparse.createCell(5).setCellValue(true);
+
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            }
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+        }
+        return file;
+    }
+
+    private static List<String[]> read(Path file) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        XlsxStreamingReader.read(file, (rowIndex, values) -> rows.add(values));
+        return rows;
+    }
+}